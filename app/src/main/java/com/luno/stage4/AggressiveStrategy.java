@@ -0,0 +1,24 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+// Built-in strategies are final: a subclass overriding calculateDamage would otherwise be
+// bypassed by GameCharacter's switch on kind()
+final class AggressiveStrategy implements CombatStrategy {
+    static int damage(int baseDamage, int level) {
+        return baseDamage + (level * 2);  // high damage scaling
+    }
+
+    @Override
+    public int calculateDamage(int baseDamage, int level) {
+        return damage(baseDamage, level);
+    }
+
+    @Override
+    public StrategyKind kind() {
+        return StrategyKind.AGGRESSIVE;
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "Aggressive";
+    }
+}
@@ -0,0 +1,22 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+final class BalancedStrategy implements CombatStrategy {
+    static int damage(int baseDamage, int level) {
+        return baseDamage + level;  // medium scaling
+    }
+
+    @Override
+    public int calculateDamage(int baseDamage, int level) {
+        return damage(baseDamage, level);
+    }
+
+    @Override
+    public StrategyKind kind() {
+        return StrategyKind.BALANCED;
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "Balanced";
+    }
+}
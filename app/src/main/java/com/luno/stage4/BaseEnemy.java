@@ -0,0 +1,49 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+// Enemies carry mutable health so pooled instances can be damaged, killed and reset for reuse
+abstract class BaseEnemy implements Enemy {
+    private final EnemyType type;
+    private int health;
+    boolean pooled;  // sitting in an EnemySpawner pool; guards against releasing twice
+
+    protected BaseEnemy(EnemyType type) {
+        this.type = type;
+        this.health = type.getMaxHealth();
+    }
+
+    @Override
+    public void attack() {
+        System.out.println(type.getAttackLine());
+    }
+
+    @Override
+    public int getHealth() {
+        return health;
+    }
+
+    @Override
+    public String getType() {
+        return type.getDisplayName();
+    }
+
+    public EnemyType getEnemyType() {
+        return type;
+    }
+
+    public boolean isAlive() {
+        return health > 0;
+    }
+
+    // Returns true on the blow that kills the enemy
+    public boolean takeDamage(int damage) {
+        if (health <= 0) {
+            return false;
+        }
+        health = Math.max(0, health - damage);
+        return health == 0;
+    }
+
+    void reset() {
+        health = type.getMaxHealth();
+    }
+}
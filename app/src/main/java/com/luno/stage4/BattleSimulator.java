@@ -0,0 +1,332 @@
+package com.luno.stage4;// Go to Java - Stage 4.19: Mass Battle Simulation
+// Coming from Go: Structure-of-arrays state with a pool of goroutines per round phase and atomic.AddInt32 for shared targets
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+// Simulates a battle between an army of GameCharacters and a horde of enemies.
+//
+// Combatants live in primitive arrays (health, alive lists; heroes also base damage, level and
+// strategy id), not objects. Each round:
+// 1. attack phase, in parallel chunks: every living combatant picks a living target, works out
+//    its damage - heroes by switching on their strategy id, as GameCharacter does - and adds it
+//    to the target's incoming total with an atomic add (many may hit one target)
+// 2. resolve phase, in parallel chunks: incoming damage is applied all at once, so both sides
+//    strike simultaneously from the state at the start of the round
+// 3. the alive lists are rebuilt and new hero deaths are reported through GameEventManager
+//
+// Hero deaths are the only thing sent to GameEventManager: its listeners have no callback for
+// combat outcomes, so rounds, survivors and damage totals come back as the BattleResult only.
+// Enemies hit for their type's attack damage. Heroes have 100 + 10 * level health. Targets
+// come from a hash of attacker and round, so the same armies always fight the same battle.
+public class BattleSimulator implements AutoCloseable {
+    private static final VarHandle DAMAGE = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int MIN_CHUNK = 512;
+    private static final int MAX_ROUNDS = 100_000;
+    private static final StrategyKind[] KINDS = StrategyKind.values();
+
+    private final ExecutorService workers;
+    private final int parallelism;
+    private final GameEventManager eventManager;
+
+    public BattleSimulator(int parallelism, GameEventManager eventManager) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+        this.eventManager = eventManager;
+        AtomicLong counter = new AtomicLong();
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "battle-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // One side of the battle in structure-of-arrays form. Heroes use baseDamage, level and
+    // strategy (a StrategyKind ordinal, with custom strategies kept in customStrategies);
+    // enemies have no strategy and always hit for baseDamage.
+    private static final class Side {
+        final int[] health;
+        final int[] baseDamage;
+        final int[] level;
+        final byte[] strategy;                    // null for enemies
+        final CombatStrategy[] customStrategies;  // only set where strategy is CUSTOM
+        final int[] incoming;
+        final int[] alive;
+        int aliveCount;
+        long damageDealt;
+
+        Side(int size, boolean strategies) {
+            health = new int[size];
+            baseDamage = new int[size];
+            level = new int[size];
+            strategy = strategies ? new byte[size] : null;
+            customStrategies = strategies ? new CombatStrategy[size] : null;
+            incoming = new int[size];
+            alive = new int[size];
+            for (int i = 0; i < size; i++) {
+                alive[i] = i;
+            }
+            aliveCount = size;
+        }
+
+        int damageOf(int combatant) {
+            if (strategy == null) {
+                return baseDamage[combatant];
+            }
+            int base = baseDamage[combatant];
+            int lvl = level[combatant];
+            switch (KINDS[strategy[combatant]]) {
+                case AGGRESSIVE: return AggressiveStrategy.damage(base, lvl);
+                case DEFENSIVE: return DefensiveStrategy.damage(base, lvl);
+                case BALANCED: return BalancedStrategy.damage(base, lvl);
+                default: return customStrategies[combatant].calculateDamage(base, lvl);
+            }
+        }
+
+        // Rebuilds the alive list, passing each combatant that died this round to onDeath
+        void compact(IntConsumer onDeath) {
+            int kept = 0;
+            for (int i = 0; i < aliveCount; i++) {
+                int combatant = alive[i];
+                if (health[combatant] > 0) {
+                    alive[kept++] = combatant;
+                } else if (onDeath != null) {
+                    onDeath.accept(combatant);
+                }
+            }
+            aliveCount = kept;
+        }
+    }
+
+    public BattleResult fight(List<GameCharacter> heroes, List<BaseEnemy> enemies) throws InterruptedException {
+        Side heroSide = new Side(heroes.size(), true);
+        Side enemySide = new Side(enemies.size(), false);
+        for (int i = 0; i < heroes.size(); i++) {
+            GameCharacter hero = heroes.get(i);
+            CombatStrategy strategy = hero.getStrategy();
+            StrategyKind kind = strategy.kind();
+            heroSide.health[i] = 100 + 10 * hero.getLevel();
+            heroSide.baseDamage[i] = hero.getBaseDamage();
+            heroSide.level[i] = hero.getLevel();
+            heroSide.strategy[i] = (byte) kind.ordinal();
+            if (kind == StrategyKind.CUSTOM) {
+                heroSide.customStrategies[i] = strategy;
+            }
+        }
+        for (int i = 0; i < enemies.size(); i++) {
+            BaseEnemy enemy = enemies.get(i);
+            enemySide.health[i] = enemy.getHealth();
+            enemySide.baseDamage[i] = enemy.getEnemyType().getAttackDamage();
+        }
+        heroSide.compact(null);   // drop anyone who starts dead
+        enemySide.compact(null);
+
+        long start = System.nanoTime();
+        int round = 0;
+        while (heroSide.aliveCount > 0 && enemySide.aliveCount > 0 && round < MAX_ROUNDS) {
+            round++;
+            long[] dealt = runPhase(attackTasks(heroSide, enemySide, round, 0x9E3779B9),
+                    attackTasks(enemySide, heroSide, round, 0x85EBCA6B));
+            heroSide.damageDealt += dealt[0];
+            enemySide.damageDealt += dealt[1];
+            runPhase(resolveTasks(heroSide), resolveTasks(enemySide));
+
+            heroSide.compact(index -> eventManager.notifyPlayerDied(heroes.get(index).getName()));
+            enemySide.compact(null);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Write the outcome back so dead enemies can be handed back to their EnemySpawner
+        for (int i = 0; i < enemies.size(); i++) {
+            BaseEnemy enemy = enemies.get(i);
+            enemy.takeDamage(enemy.getHealth() - Math.max(0, enemySide.health[i]));
+        }
+        return new BattleResult(heroes.size(), enemies.size(), round, heroSide.aliveCount, enemySide.aliveCount,
+                heroSide.damageDealt, enemySide.damageDealt, elapsed);
+    }
+
+    // Each task covers a slice of the attackers' alive list and returns the damage it dealt
+    private List<Callable<Long>> attackTasks(Side attackers, Side defenders, int round, int salt) {
+        List<Callable<Long>> tasks = new ArrayList<>();
+        int count = attackers.aliveCount;
+        int chunk = chunkSize(count);
+        for (int from = 0; from < count; from += chunk) {
+            int sliceFrom = from;
+            int sliceTo = Math.min(from + chunk, count);
+            tasks.add(() -> {
+                int[] alive = attackers.alive;
+                int[] targets = defenders.alive;
+                int targetCount = defenders.aliveCount;
+                long dealt = 0;
+                for (int i = sliceFrom; i < sliceTo; i++) {
+                    int attacker = alive[i];
+                    int target = targets[Math.floorMod(mix(attacker * salt + round), targetCount)];
+                    int damage = attackers.damageOf(attacker);
+                    DAMAGE.getAndAdd(defenders.incoming, target, damage);
+                    dealt += damage;
+                }
+                return dealt;
+            });
+        }
+        return tasks;
+    }
+
+    // Applies and clears incoming damage for a slice of the side's alive list
+    private List<Callable<Long>> resolveTasks(Side side) {
+        List<Callable<Long>> tasks = new ArrayList<>();
+        int count = side.aliveCount;
+        int chunk = chunkSize(count);
+        for (int from = 0; from < count; from += chunk) {
+            int sliceFrom = from;
+            int sliceTo = Math.min(from + chunk, count);
+            tasks.add(() -> {
+                for (int i = sliceFrom; i < sliceTo; i++) {
+                    int combatant = side.alive[i];
+                    side.health[combatant] -= side.incoming[combatant];
+                    side.incoming[combatant] = 0;
+                }
+                return 0L;
+            });
+        }
+        return tasks;
+    }
+
+    // Runs both sides' tasks together and waits for all of them; returns each side's total
+    private long[] runPhase(List<Callable<Long>> first, List<Callable<Long>> second) throws InterruptedException {
+        List<Callable<Long>> all = new ArrayList<>(first.size() + second.size());
+        all.addAll(first);
+        all.addAll(second);
+        List<Future<Long>> results = workers.invokeAll(all);
+        long firstTotal = 0;
+        long secondTotal = 0;
+        try {
+            for (int i = 0; i < results.size(); i++) {
+                if (i < first.size()) {
+                    firstTotal += results.get(i).get();
+                } else {
+                    secondTotal += results.get(i).get();
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Battle phase failed", e.getCause());
+        }
+        return new long[] {firstTotal, secondTotal};
+    }
+
+    private int chunkSize(int count) {
+        return Math.max(MIN_CHUNK, (count + parallelism * 4 - 1) / (parallelism * 4));
+    }
+
+    private static int mix(int value) {
+        value ^= value >>> 16;
+        value *= 0x7FEB352D;
+        value ^= value >>> 15;
+        return value;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+
+    static final class BattleResult {
+        final int heroes;
+        final int enemies;
+        final int rounds;
+        final int heroSurvivors;
+        final int enemySurvivors;
+        final long heroDamage;
+        final long enemyDamage;
+        final long elapsedNanos;
+
+        BattleResult(int heroes, int enemies, int rounds, int heroSurvivors, int enemySurvivors,
+                     long heroDamage, long enemyDamage, long elapsedNanos) {
+            this.heroes = heroes;
+            this.enemies = enemies;
+            this.rounds = rounds;
+            this.heroSurvivors = heroSurvivors;
+            this.enemySurvivors = enemySurvivors;
+            this.heroDamage = heroDamage;
+            this.enemyDamage = enemyDamage;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        String getWinner() {
+            if (heroSurvivors > 0 && enemySurvivors == 0) {
+                return "Heroes";
+            }
+            return enemySurvivors > 0 && heroSurvivors == 0 ? "Enemies" : "Nobody";
+        }
+
+        double roundsPerSecond() {
+            return rounds * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d vs %d: %s win after %d rounds (%d/%d survivors, damage %d/%d), %.0f rounds/s",
+                    heroes, enemies, getWinner(), rounds, heroSurvivors, enemySurvivors, heroDamage, enemyDamage,
+                    roundsPerSecond());
+        }
+    }
+
+    private static List<GameCharacter> army(int size, GameEventManager eventManager) {
+        CombatStrategy[] strategies = {new AggressiveStrategy(), new DefensiveStrategy(), new BalancedStrategy()};
+        List<GameCharacter> heroes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            heroes.add(new GameCharacter("Hero" + i, 1 + i % 30, strategies[i % strategies.length], eventManager));
+        }
+        return heroes;
+    }
+
+    // Fights fresh copies of the same battle until a second has passed; returns rounds per second
+    private static double benchmark(BattleSimulator simulator, EnemySpawner spawner, List<GameCharacter> heroes,
+                                    int hordeSize, int hordeLevel) throws InterruptedException {
+        BaseEnemy[] horde = new BaseEnemy[hordeSize];
+        long rounds = 0;
+        long nanos = 0;
+        while (nanos < 1_000_000_000L) {
+            spawner.spawnWave(hordeLevel, hordeSize, horde);
+            BattleResult result = simulator.fight(heroes, Arrays.asList(horde));
+            rounds += result.rounds;
+            nanos += result.elapsedNanos;
+            for (BaseEnemy enemy : horde) {
+                spawner.release(enemy);  // dead or alive, the wave is over
+            }
+        }
+        return rounds * 1e9 / nanos;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== Mass Battle Simulation ===");
+        GameEventManager eventManager = new GameEventManager();
+        DesignPatterns.CountingListener deaths = new DesignPatterns.CountingListener();
+        eventManager.addListener(deaths, ListenerInterest.builder().deaths().build());
+        EnemySpawner spawner = new EnemySpawner();
+
+        try (BattleSimulator simulator = new BattleSimulator(Runtime.getRuntime().availableProcessors(), eventManager)) {
+            // One full battle against a dragon-heavy horde twice the army's size
+            List<GameCharacter> heroes = army(10_000, eventManager);
+            BaseEnemy[] horde = new BaseEnemy[20_000];
+            spawner.spawnWave(30, horde.length, horde);
+            BattleResult result = simulator.fight(heroes, Arrays.asList(horde));
+            System.out.println(result + ", " + deaths.notifications.sum() + " hero deaths reported");
+            for (BaseEnemy enemy : horde) {
+                spawner.release(enemy);
+            }
+
+            benchmark(simulator, spawner, army(1_000, eventManager), 2_000, 30);  // warm-up
+            System.out.println("\n--- Rounds per second by army size (army vs 2x horde) ---");
+            for (int armySize : new int[] {100, 1_000, 10_000, 100_000}) {
+                double roundsPerSecond = benchmark(simulator, spawner, army(armySize, eventManager), armySize * 2, 30);
+                System.out.printf("%,9d heroes: %,10.0f rounds/s%n", armySize, roundsPerSecond);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Handlers that can save their state at a known journal sequence, so recovery
+// only has to replay the events published after the newest checkpoint
+interface CheckpointableHandler {
+    String getCheckpointName();
+    void writeCheckpoint(DataOutputStream out) throws IOException;
+
+    // Parses saved state without touching the handler and returns the step that installs it.
+    // Recovery reads every handler's state before installing any, so a bad checkpoint leaves
+    // all handlers as they were.
+    Runnable readCheckpoint(DataInputStream in) throws IOException;
+}
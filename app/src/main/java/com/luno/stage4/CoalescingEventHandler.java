@@ -0,0 +1,10 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+// Handlers that only need the net effect of a burst of events. Events with the same key that
+// arrive within the coalescing window are merged: the handler sees the latest one plus how
+// many were folded into it. See EventBus.registerCoalescingHandler.
+interface CoalescingEventHandler<T extends GameEvent> {
+    Class<T> getEventType();
+    long coalesceKey(T event);
+    void handleCoalesced(T latest, int count);
+}
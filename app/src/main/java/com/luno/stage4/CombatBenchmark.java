@@ -0,0 +1,184 @@
+package com.luno.stage4;// Go to Java - Stage 4.18: Benchmarking Combat Calculations
+// Coming from Go: What `go test -bench` would give you, hand-rolled since the JVM needs warm-up first
+
+import java.util.SplittableRandom;
+
+// Per-attack cost of CombatStrategy damage calculation.
+//
+// Bulk damage, at different batch sizes:
+//   per attack - one interface call per attack, with all three strategies live at the call site
+//   bulk       - one calculateDamage(int[], int[], int[]) call per batch
+//
+// Call site shape, with one, two or three strategy classes reaching the call:
+//   interface  - strategy.calculateDamage(...): inlined while the site sees one or two
+//                classes, a real virtual call once it sees three (megamorphic)
+//   switch     - GameCharacter.computeDamage(): a switch on StrategyKind, inlined for any mix
+// Each shape has its own copy of the loop, because the JIT profiles every call site separately
+// and a shared loop would be polluted by whichever shape ran first.
+//
+// Each measurement runs after a warm-up pass so the numbers reflect JIT-compiled code.
+public final class CombatBenchmark {
+    private static final int[] BATCH_SIZES = {1, 10, 100, 1_000, 10_000, 100_000};
+    private static final long ATTACKS_PER_MEASUREMENT = 50_000_000;
+    private static final int SHAPE_SIZE = 1024;
+    private static final int SHAPE_ROUNDS = 50_000;
+
+    private static final CombatStrategy[] STRATEGIES = {
+            new AggressiveStrategy(), new DefensiveStrategy(), new BalancedStrategy()
+    };
+
+    private static long sink;  // consumed results, so the JIT cannot drop the work
+
+    private CombatBenchmark() {
+    }
+
+    static double perAttackNanos(int batchSize) {
+        int[][] batch = batch(batchSize);
+        int[] out = new int[batchSize];
+        long rounds = Math.max(1, ATTACKS_PER_MEASUREMENT / batchSize);
+        long start = System.nanoTime();
+        for (long round = 0; round < rounds; round++) {
+            scalar(STRATEGIES[(int) (round % STRATEGIES.length)], batch[0], batch[1], out);
+            sink += out[0];
+        }
+        return (double) (System.nanoTime() - start) / (rounds * batchSize);
+    }
+
+    static double bulkNanos(int batchSize) {
+        int[][] batch = batch(batchSize);
+        int[] out = new int[batchSize];
+        long rounds = Math.max(1, ATTACKS_PER_MEASUREMENT / batchSize);
+        long start = System.nanoTime();
+        for (long round = 0; round < rounds; round++) {
+            STRATEGIES[(int) (round % STRATEGIES.length)].calculateDamage(batch[0], batch[1], out);
+            sink += out[0];
+        }
+        return (double) (System.nanoTime() - start) / (rounds * batchSize);
+    }
+
+    static double interfaceMono(CombatStrategy[] strategies, int[] base, int[] level) {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int round = 0; round < SHAPE_ROUNDS; round++) {
+            for (int i = 0; i < strategies.length; i++) {
+                sum += strategies[i].calculateDamage(base[i], level[i]);
+            }
+        }
+        sink += sum;
+        return (double) (System.nanoTime() - start) / ((long) SHAPE_ROUNDS * strategies.length);
+    }
+
+    static double interfaceBi(CombatStrategy[] strategies, int[] base, int[] level) {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int round = 0; round < SHAPE_ROUNDS; round++) {
+            for (int i = 0; i < strategies.length; i++) {
+                sum += strategies[i].calculateDamage(base[i], level[i]);
+            }
+        }
+        sink += sum;
+        return (double) (System.nanoTime() - start) / ((long) SHAPE_ROUNDS * strategies.length);
+    }
+
+    static double interfaceMega(CombatStrategy[] strategies, int[] base, int[] level) {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int round = 0; round < SHAPE_ROUNDS; round++) {
+            for (int i = 0; i < strategies.length; i++) {
+                sum += strategies[i].calculateDamage(base[i], level[i]);
+            }
+        }
+        sink += sum;
+        return (double) (System.nanoTime() - start) / ((long) SHAPE_ROUNDS * strategies.length);
+    }
+
+    static double kindSwitch(GameCharacter[] characters) {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int round = 0; round < SHAPE_ROUNDS; round++) {
+            for (GameCharacter character : characters) {
+                sum += character.computeDamage();
+            }
+        }
+        sink += sum;
+        return (double) (System.nanoTime() - start) / ((long) SHAPE_ROUNDS * characters.length);
+    }
+
+    // Characters cycling through the first `kinds` built-in strategies
+    private static GameCharacter[] characters(int kinds) {
+        GameEventManager eventManager = new GameEventManager();
+        GameCharacter[] characters = new GameCharacter[SHAPE_SIZE];
+        for (int i = 0; i < characters.length; i++) {
+            characters[i] = new GameCharacter("Hero" + i, 1 + i % 60, STRATEGIES[i % kinds], eventManager);
+        }
+        return characters;
+    }
+
+    private static CombatStrategy[] strategiesOf(GameCharacter[] characters) {
+        CombatStrategy[] strategies = new CombatStrategy[characters.length];
+        for (int i = 0; i < characters.length; i++) {
+            strategies[i] = characters[i].getStrategy();
+        }
+        return strategies;
+    }
+
+    // The pre-bulk way: one virtual call per attack
+    private static void scalar(CombatStrategy strategy, int[] base, int[] level, int[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = strategy.calculateDamage(base[i], level[i]);
+        }
+    }
+
+    private static int[][] batch(int size) {
+        SplittableRandom random = new SplittableRandom(size);
+        int[] base = new int[size];
+        int[] level = new int[size];
+        for (int i = 0; i < size; i++) {
+            base[i] = 5 + random.nextInt(20);
+            level[i] = 1 + random.nextInt(60);
+        }
+        return new int[][] {base, level};
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== Benchmarking Combat Calculations ===");
+        for (int size : BATCH_SIZES) {  // warm-up
+            perAttackNanos(size);
+            bulkNanos(size);
+        }
+
+        System.out.println("\n--- Bulk Damage (ns per attack) ---");
+        System.out.printf("%10s %12s %12s %8s%n", "batch", "per attack", "bulk", "speedup");
+        for (int size : BATCH_SIZES) {
+            double scalar = perAttackNanos(size);
+            double bulk = bulkNanos(size);
+            System.out.printf("%10d %12.3f %12.3f %7.1fx%n", size, scalar, bulk, scalar / bulk);
+        }
+
+        GameCharacter[] mono = characters(1);
+        GameCharacter[] bi = characters(2);
+        GameCharacter[] mega = characters(3);
+        int[] base = new int[SHAPE_SIZE];
+        int[] level = new int[SHAPE_SIZE];
+        for (int i = 0; i < SHAPE_SIZE; i++) {
+            base[i] = mono[i].getBaseDamage();
+            level[i] = mono[i].getLevel();
+        }
+        double[][] results = new double[3][2];
+        for (int pass = 0; pass < 2; pass++) {  // first pass warms up
+            results[0][0] = interfaceMono(strategiesOf(mono), base, level);
+            results[1][0] = interfaceBi(strategiesOf(bi), base, level);
+            results[2][0] = interfaceMega(strategiesOf(mega), base, level);
+            results[0][1] = kindSwitch(mono);
+            results[1][1] = kindSwitch(bi);
+            results[2][1] = kindSwitch(mega);
+        }
+        System.out.println("\n--- Call Site Shape (ns per attack) ---");
+        System.out.printf("%14s %12s %12s%n", "strategies", "interface", "switch");
+        String[] shapes = {"1 (mono)", "2 (bi)", "3 (mega)"};
+        for (int i = 0; i < shapes.length; i++) {
+            System.out.printf("%14s %12.3f %12.3f%n", shapes[i], results[i][0], results[i][1]);
+        }
+        System.out.println("(checksum " + sink + ")");
+    }
+}
@@ -0,0 +1,65 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+import java.util.*;
+
+// One attack: attacker, target, damage and whether it was a critical hit. Either side may be
+// the player; "playerIsTarget" records which, so the event can be routed by its player.
+class CombatEvent implements GameEvent {
+    private final String eventType;
+    private final long timestamp;
+    private final Map<String, Object> eventData;
+    private String topic;  // built on first use
+
+    public CombatEvent(String attacker, String target, int damage, boolean critical) {
+        this.eventType = "COMBAT";
+        this.timestamp = System.currentTimeMillis();
+        this.eventData = new HashMap<>();
+        this.eventData.put("attacker", attacker);
+        this.eventData.put("target", target);
+        this.eventData.put("damage", damage);
+        this.eventData.put("critical", critical);
+        this.eventData.put("playerIsTarget", false);
+    }
+
+    // An enemy hitting a player
+    public static CombatEvent againstPlayer(String enemy, String playerName, int damage, boolean critical) {
+        CombatEvent event = new CombatEvent(enemy, playerName, damage, critical);
+        event.eventData.put("playerIsTarget", true);
+        return event;
+    }
+
+    // Restores an event read back from the EventJournal, keeping its original timestamp
+    CombatEvent(long timestamp, Map<String, Object> eventData) {
+        this.eventType = "COMBAT";
+        this.timestamp = timestamp;
+        this.eventData = new HashMap<>(eventData);
+        this.eventData.putIfAbsent("playerIsTarget", false);
+    }
+
+    @Override
+    public String getEventType() { return eventType; }
+
+    @Override
+    public long getTimestamp() { return timestamp; }
+
+    @Override
+    public Map<String, Object> getEventData() { return new HashMap<>(eventData); }
+
+    @Override
+    public String getTopic() {
+        if (topic == null) {
+            topic = eventType + ((Boolean) eventData.get("critical") ? ".CRITICAL" : ".HIT");
+        }
+        return topic;
+    }
+
+    // Direct accessors for hot handlers - no defensive copy of the data map
+    public String getAttacker() { return (String) eventData.get("attacker"); }
+    public String getTarget() { return (String) eventData.get("target"); }
+    public int getDamage() { return (Integer) eventData.get("damage"); }
+    public boolean isCritical() { return (Boolean) eventData.get("critical"); }
+    public boolean isPlayerTarget() { return (Boolean) eventData.get("playerIsTarget"); }
+
+    // The player side of the fight, whichever way the blow went
+    public String getPlayerName() { return isPlayerTarget() ? getTarget() : getAttacker(); }
+}
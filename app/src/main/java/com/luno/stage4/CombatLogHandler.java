@@ -0,0 +1,85 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+// Without a sink, lines are formatted and printed inline; with a CombatLogSink the handler only
+// enqueues a compact record and the sink's writer thread does the formatting and file I/O.
+// Either way only the most recent lines are kept in memory.
+class CombatLogHandler implements EventHandler<CombatEvent>, CheckpointableHandler {
+    static final int RECENT_LIMIT = 1000;
+
+    private final Deque<String> combatLog = new ArrayDeque<>();
+    private final CombatLogSink sink;
+
+    public CombatLogHandler() {
+        this(null);
+    }
+
+    public CombatLogHandler(CombatLogSink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void handle(CombatEvent event) {
+        if (sink != null) {
+            sink.record(event.getTimestamp(), event.getAttacker(), event.getTarget(), event.getDamage(), event.isCritical());
+            return;
+        }
+
+        String logEntry = String.format("%s attacks %s for %d damage%s",
+                event.getAttacker(), event.getTarget(), event.getDamage(), event.isCritical() ? " (CRITICAL!)" : "");
+        remember(logEntry);
+        System.out.println("⚔️ " + logEntry);
+    }
+
+    @Override
+    public Class<CombatEvent> getEventType() {
+        return CombatEvent.class;
+    }
+
+    // The most recent lines (at most RECENT_LIMIT, or the sink's window), oldest first
+    public List<String> getCombatLog() {
+        return sink != null ? sink.getRecentLines() : new ArrayList<>(combatLog);
+    }
+
+    private void remember(String logEntry) {
+        if (combatLog.size() == RECENT_LIMIT) {
+            combatLog.removeFirst();
+        }
+        combatLog.addLast(logEntry);
+    }
+
+    @Override
+    public String getCheckpointName() {
+        return "combatLog";
+    }
+
+    @Override
+    public void writeCheckpoint(DataOutputStream out) throws IOException {
+        List<String> lines = getCombatLog();
+        out.writeInt(lines.size());
+        for (String entry : lines) {
+            out.writeUTF(entry);
+        }
+    }
+
+    @Override
+    public Runnable readCheckpoint(DataInputStream in) throws IOException {
+        List<String> lines = new ArrayList<>();
+        int entries = in.readInt();
+        for (int i = 0; i < entries; i++) {
+            lines.add(in.readUTF());
+        }
+        return () -> {
+            if (sink != null) {
+                sink.restoreRecentLines(lines);
+            } else {
+                combatLog.clear();
+                lines.forEach(this::remember);
+            }
+        };
+    }
+}
@@ -0,0 +1,331 @@
+package com.luno.stage4;// Go to Java - Stage 4.11: Asynchronous Combat Log
+// Coming from Go: A buffered channel of small structs drained by one writer goroutine
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Combat log pipeline that keeps formatting and file I/O off the publishing thread.
+//
+// Publishers write compact records (timestamp, attacker id, target id, damage, critical flag)
+// into a bounded lock-free ring buffer. A single background writer drains it in batches,
+// formats the lines, appends them to a size-rotated log file and keeps only the most recent
+// lines in memory. The writer parks when the ring is empty and the next record wakes it.
+// When the ring is full, or the sink has been closed, records are dropped and counted rather
+// than blocking combat.
+public final class CombatLogSink implements AutoCloseable {
+    private static final int LONGS_PER_RECORD = 3;
+    private static final int BATCH_SIZE = 512;
+    private static final String FILE_NAME = "combat.log";
+
+    // Ring buffer: slot i uses records[i * 3 .. i * 3 + 2]; sequences[i] says whose turn the slot is
+    private final int capacity;
+    private final int mask;
+    private final long[] records;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;  // written by the writer thread only; volatile so queue depth can be read
+
+    // Names are interned so records stay primitive
+    private final NameInterner names = new NameInterner();
+
+    private final String[] recent;
+    private int recentNext;
+    private int recentSize;
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private BufferedWriter out;
+    private long fileBytes;  // encoded UTF-8 bytes in the current file
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean accepting = true;  // cleared first by close(): new records are dropped
+    private volatile boolean running = true;    // cleared once every accepted record is published
+    private final LongAdder recording = new LongAdder();
+
+    public CombatLogSink(Path directory, int capacity, int recentLimit, long maxFileBytes, int maxFiles)
+            throws IOException {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        if (recentLimit < 1) {
+            throw new IllegalArgumentException("Recent line limit must be at least 1: " + recentLimit);
+        }
+        if (maxFileBytes < 1) {
+            throw new IllegalArgumentException("Maximum file size must be positive: " + maxFileBytes);
+        }
+        if (maxFiles < 1) {
+            throw new IllegalArgumentException("Must keep at least one log file: " + maxFiles);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.records = new long[capacity * LONGS_PER_RECORD];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.recent = new String[recentLimit];
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        Files.createDirectories(directory);
+        openLogFile(false);
+
+        this.writer = new Thread(this::drainLoop, "combat-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Non-blocking; returns false (and counts a drop) if the ring is full or the sink is closed
+    public boolean record(long timestamp, String attacker, String target, int damage, boolean critical) {
+        recording.increment();
+        try {
+            if (!accepting) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            return enqueue(timestamp, attacker, target, damage, critical);
+        } finally {
+            recording.decrement();
+        }
+    }
+
+    private boolean enqueue(long timestamp, String attacker, String target, int damage, boolean critical) {
+        int attackerId = names.intern(attacker);
+        int targetId = names.intern(target);
+        long position = tail.get();
+        while (true) {
+            int slot = (int) (position & mask);
+            long sequence = sequences.get(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (sequence < position) {
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+        int slot = (int) (position & mask);
+        int base = slot * LONGS_PER_RECORD;
+        records[base] = timestamp;
+        records[base + 1] = ((long) attackerId << 32) | (targetId & 0xFFFFFFFFL);
+        records[base + 2] = ((long) damage << 1) | (critical ? 1 : 0);
+        sequences.set(slot, position + 1);  // volatile write publishes the record to the writer
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    // Snapshot of the most recent formatted lines, oldest first
+    public synchronized List<String> getRecentLines() {
+        List<String> lines = new ArrayList<>(recentSize);
+        int start = (recentNext - recentSize + recent.length) % recent.length;
+        for (int i = 0; i < recentSize; i++) {
+            lines.add(recent[(start + i) % recent.length]);
+        }
+        return lines;
+    }
+
+    // Seeds the recent window, e.g. when restoring a checkpoint
+    public synchronized void restoreRecentLines(List<String> lines) {
+        recentNext = 0;
+        recentSize = 0;
+        for (String line : lines) {
+            remember(line);
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // Records waiting for the writer; register with EventBusMetrics.registerQueueDepth
+    public long getQueueDepth() {
+        return Math.max(0, tail.get() - head);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Stops accepting records, then returns once everything already recorded has been written
+    // and flushed
+    @Override
+    public void close() throws IOException {
+        accepting = false;
+        while (recording.sum() != 0) {
+            Thread.onSpinWait();  // records that passed the check are still being published
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+    }
+
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(96);
+        while (true) {
+            int drained = 0;
+            // Claimed records are never dropped, so anything this far behind the tail will be pushed
+            // out of the recent window before anyone could see it; skip building its String
+            long rememberFrom = tail.get() - recent.length;
+            try {
+                while (drained < BATCH_SIZE) {
+                    int slot = (int) (head & mask);
+                    if (sequences.get(slot) != head + 1) {
+                        break;  // next record not published yet
+                    }
+                    int base = slot * LONGS_PER_RECORD;
+                    format(line, records[base], records[base + 1], records[base + 2]);
+                    boolean keep = head >= rememberFrom;
+                    sequences.set(slot, head + capacity);  // hand the slot back to producers
+                    head++;
+                    drained++;
+
+                    writeLine(line);
+                    if (keep) {
+                        remember(line.toString());
+                    }
+                }
+                if (drained > 0) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                System.err.println("Combat log write failed: " + e.getMessage());
+            }
+
+            if (drained == 0) {
+                if (!running && !hasNext()) {
+                    return;
+                }
+                // Announce the park before the last check: a producer publishing after that check
+                // is guaranteed to see the flag and unpark us
+                writerParked = true;
+                if (!hasNext() && running) {
+                    LockSupport.park(this);
+                }
+                writerParked = false;
+            }
+        }
+    }
+
+    private boolean hasNext() {
+        return sequences.get((int) (head & mask)) == head + 1;
+    }
+
+    private void format(StringBuilder line, long timestamp, long participants, long outcome) {
+        line.setLength(0);
+        line.append(timestamp).append(' ')
+                .append(names.nameOf((int) (participants >>> 32))).append(" attacks ")
+                .append(names.nameOf((int) participants)).append(" for ")
+                .append(outcome >>> 1).append(" damage");
+        if ((outcome & 1) != 0) {
+            line.append(" (CRITICAL!)");
+        }
+    }
+
+    private void writeLine(CharSequence line) throws IOException {
+        if (fileBytes >= maxFileBytes) {
+            rotate();
+        }
+        out.append(line).append('\n');
+        fileBytes += utf8Length(line) + 1;
+    }
+
+    private static int utf8Length(CharSequence text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private synchronized void remember(String line) {
+        recent[recentNext] = line;
+        recentNext = (recentNext + 1) % recent.length;
+        if (recentSize < recent.length) {
+            recentSize++;
+        }
+    }
+
+    // combat.log -> combat.log.1 -> ... -> combat.log.<maxFiles - 1>, oldest deleted.
+    // With a single file there is nothing to shift into, so the file starts over.
+    private void rotate() throws IOException {
+        out.close();
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path from = directory.resolve(i == 1 ? FILE_NAME : FILE_NAME + "." + (i - 1));
+            if (Files.exists(from)) {
+                Files.move(from, directory.resolve(FILE_NAME + "." + i), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        openLogFile(maxFiles == 1);
+    }
+
+    private void openLogFile(boolean truncate) throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                truncate ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+        fileBytes = Files.size(file);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Asynchronous Combat Log ===");
+        Path directory = Files.createTempDirectory("combat-log");
+        String[] fighters = {"Conan", "Xena", "Goblin", "Orc", "Dragon"};
+
+        try (CombatLogSink sink = new CombatLogSink(directory, 1 << 16, 100, 256 * 1024, 3)) {
+            EventBus eventBus = new EventBus();
+            CombatLogHandler combatLog = new CombatLogHandler(sink);
+            eventBus.registerHandler(combatLog);
+
+            int events = 500_000;
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                eventBus.publishEvent(new CombatEvent(fighters[i % 5], fighters[(i + 2) % 5], 10 + (i & 15), (i & 7) == 0));
+                if ((i & 0xFFFF) == 0) {
+                    eventBus.clearHistory();  // keep the demo's memory flat
+                }
+            }
+            long publishNs = System.nanoTime() - start;
+            System.out.printf("Published %d combat events at %.0f ns each; %d dropped while the writer caught up%n",
+                    events, (double) publishNs / events, sink.getDroppedCount());
+            Thread.sleep(200);
+            List<String> recentLines = combatLog.getCombatLog();
+            System.out.println("Recent window holds " + recentLines.size() + " lines, last: "
+                    + recentLines.get(recentLines.size() - 1));
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                System.out.println("  " + file.getFileName() + " (" + Files.size(file) + " bytes)");
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+// Strategy Pattern - different algorithms for same task
+interface CombatStrategy {
+    int calculateDamage(int baseDamage, int level);
+    String getStrategyName();
+
+    // Built-in strategies report their kind so GameCharacter can compute their damage through
+    // a switch instead of an interface call; anything else is CUSTOM and goes through the interface
+    default StrategyKind kind() {
+        return StrategyKind.CUSTOM;
+    }
+
+    // Bulk form for raid-sized fights: out[i] = calculateDamage(base[i], level[i]).
+    // One interface call per batch instead of per attack. Like GameCharacter, it switches on
+    // kind() once, so built-in strategies run a plain indexed loop over their static formula
+    // that the JIT can inline, unroll and auto-vectorize; custom ones call back per element.
+    default void calculateDamage(int[] base, int[] level, int[] out) {
+        checkBatch(base, level, out);
+        switch (kind()) {
+            case AGGRESSIVE:
+                for (int i = 0; i < out.length; i++) {
+                    out[i] = AggressiveStrategy.damage(base[i], level[i]);
+                }
+                break;
+            case DEFENSIVE:
+                for (int i = 0; i < out.length; i++) {
+                    out[i] = DefensiveStrategy.damage(base[i], level[i]);
+                }
+                break;
+            case BALANCED:
+                for (int i = 0; i < out.length; i++) {
+                    out[i] = BalancedStrategy.damage(base[i], level[i]);
+                }
+                break;
+            default:
+                for (int i = 0; i < out.length; i++) {
+                    out[i] = calculateDamage(base[i], level[i]);
+                }
+        }
+    }
+
+    private static void checkBatch(int[] base, int[] level, int[] out) {
+        if (base.length != out.length || level.length != out.length) {
+            throw new IllegalArgumentException("Batch arrays differ in length: base=" + base.length
+                    + " level=" + level.length + " out=" + out.length);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+final class DefensiveStrategy implements CombatStrategy {
+    static int damage(int baseDamage, int level) {
+        return baseDamage + (level / 2);  // low damage, presumably tankier
+    }
+
+    @Override
+    public int calculateDamage(int baseDamage, int level) {
+        return damage(baseDamage, level);
+    }
+
+    @Override
+    public StrategyKind kind() {
+        return StrategyKind.DEFENSIVE;
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "Defensive";
+    }
+}
@@ -2,47 +2,19 @@ package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
 // Coming from Go: Similar patterns but Java's OOP makes them more explicit
 
 import java.util.*;
-
-// Observer Pattern - similar to Go channels but object-oriented
-interface GameEventListener {
-    void onPlayerLevelUp(String playerName, int newLevel);
-    void onPlayerDied(String playerName);
-    void onItemFound(String playerName, String itemName);
-}
-
-class GameEventManager {
-    private List<GameEventListener> listeners = new ArrayList<>();
-
-    public void addListener(GameEventListener listener) {
-        listeners.add(listener);
-    }
-
-    public void removeListener(GameEventListener listener) {
-        listeners.remove(listener);
-    }
-
-    public void notifyPlayerLevelUp(String playerName, int newLevel) {
-        for (GameEventListener listener : listeners) {
-            listener.onPlayerLevelUp(playerName, newLevel);
-        }
-    }
-
-    public void notifyPlayerDied(String playerName) {
-        for (GameEventListener listener : listeners) {
-            listener.onPlayerDied(playerName);
-        }
-    }
-
-    public void notifyItemFound(String playerName, String itemName) {
-        for (GameEventListener listener : listeners) {
-            listener.onItemFound(playerName, itemName);
-        }
-    }
-}
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 // Concrete observers
 class AchievementSystem implements GameEventListener {
-    private Map<String, Integer> playerLevels = new HashMap<>();
+    // Everything the achievements below can react to; register with this so other events skip us
+    static final ListenerInterest INTEREST = ListenerInterest.builder()
+            .levelUps(10, 25)
+            .deaths()
+            .items(itemName -> itemName.contains("Legendary"))
+            .build();
+
+    private Map<String, Integer> playerLevels = new HashMap<>();  // milestone levels reached
 
     @Override
     public void onPlayerLevelUp(String playerName, int newLevel) {
@@ -68,210 +40,128 @@ class AchievementSystem implements GameEventListener {
     }
 }
 
-class StatisticsTracker implements GameEventListener {
-    private Map<String, Integer> levelUpCounts = new HashMap<>();
-    private Map<String, Integer> deathCounts = new HashMap<>();
-    private Map<String, Integer> itemCounts = new HashMap<>();
-
-    @Override
-    public void onPlayerLevelUp(String playerName, int newLevel) {
-        levelUpCounts.put(playerName, levelUpCounts.getOrDefault(playerName, 0) + 1);
-    }
-
-    @Override
-    public void onPlayerDied(String playerName) {
-        deathCounts.put(playerName, deathCounts.getOrDefault(playerName, 0) + 1);
-    }
-
-    @Override
-    public void onItemFound(String playerName, String itemName) {
-        itemCounts.put(playerName, itemCounts.getOrDefault(playerName, 0) + 1);
-    }
-
-    public void printStatistics() {
-        System.out.println("\n=== Game Statistics ===");
-        System.out.println("Level ups: " + levelUpCounts);
-        System.out.println("Deaths: " + deathCounts);
-        System.out.println("Items found: " + itemCounts);
-    }
-}
-
-// Strategy Pattern - different algorithms for same task
-interface CombatStrategy {
-    int calculateDamage(int baseDamage, int level);
-    String getStrategyName();
-}
-
-class AggressiveStrategy implements CombatStrategy {
-    @Override
-    public int calculateDamage(int baseDamage, int level) {
-        return baseDamage + (level * 2);  // high damage scaling
-    }
-
-    @Override
-    public String getStrategyName() {
-        return "Aggressive";
-    }
-}
-
-class DefensiveStrategy implements CombatStrategy {
-    @Override
-    public int calculateDamage(int baseDamage, int level) {
-        return baseDamage + (level / 2);  // low damage, presumably tankier
-    }
-
-    @Override
-    public String getStrategyName() {
-        return "Defensive";
-    }
-}
-
-class BalancedStrategy implements CombatStrategy {
-    @Override
-    public int calculateDamage(int baseDamage, int level) {
-        return baseDamage + level;  // medium scaling
-    }
-
-    @Override
-    public String getStrategyName() {
-        return "Balanced";
-    }
-}
-
-// Factory Pattern - creating objects without specifying exact class
-interface Enemy {
-    void attack();
-    int getHealth();
-    String getType();
-}
-
-class Goblin implements Enemy {
-    @Override
-    public void attack() {
-        System.out.println("Goblin swipes with claws!");
-    }
-
-    @Override
-    public int getHealth() {
-        return 30;
-    }
-
-    @Override
-    public String getType() {
-        return "Goblin";
-    }
-}
-
-class Dragon implements Enemy {
-    @Override
-    public void attack() {
-        System.out.println("Dragon breathes fire!");
-    }
-
-    @Override
-    public int getHealth() {
-        return 200;
-    }
-
-    @Override
-    public String getType() {
-        return "Dragon";
-    }
-}
-
-class Skeleton implements Enemy {
-    @Override
-    public void attack() {
-        System.out.println("Skeleton shoots arrows!");
-    }
-
-    @Override
-    public int getHealth() {
-        return 50;
-    }
-
-    @Override
-    public String getType() {
-        return "Skeleton";
-    }
-}
-
 // Factory class
 class EnemyFactory {
     public static Enemy createEnemy(String type, int playerLevel) {
-        switch (type.toLowerCase()) {
-            case "goblin":
-                return new Goblin();
-            case "dragon":
-                return new Dragon();
-            case "skeleton":
-                return new Skeleton();
-            default:
-                // Default based on player level
-                if (playerLevel < 5) {
-                    return new Goblin();
-                } else if (playerLevel < 15) {
-                    return new Skeleton();
-                } else {
-                    return new Dragon();
-                }
-        }
+        EnemyType enemyType = EnemyType.fromName(type);
+        return (enemyType != null ? enemyType : randomType(playerLevel)).create();
     }
 
     public static Enemy createRandomEnemy(int playerLevel) {
-        String[] types = {"goblin", "skeleton", "dragon"};
-        String randomType = types[new Random().nextInt(types.length)];
-        return createEnemy(randomType, playerLevel);
-    }
-}
-
-// Context class using Strategy pattern
-class GameCharacter {
-    private String name;
-    private int level;
-    private int baseDamage;
-    private CombatStrategy strategy;
-    private GameEventManager eventManager;
-
-    public GameCharacter(String name, GameEventManager eventManager) {
-        this.name = name;
-        this.level = 1;
-        this.baseDamage = 10;
-        this.strategy = new BalancedStrategy();  // default
-        this.eventManager = eventManager;
-    }
-
-    public void setStrategy(CombatStrategy strategy) {
-        this.strategy = strategy;
-        System.out.println(name + " switched to " + strategy.getStrategyName() + " combat style");
+        return randomType(playerLevel).create();
     }
 
-    public void levelUp() {
-        level++;
-        eventManager.notifyPlayerLevelUp(name, level);
-    }
-
-    public void die() {
-        eventManager.notifyPlayerDied(name);
+    // Weighted by the player's level band, see SpawnTable.DEFAULT
+    static EnemyType randomType(int playerLevel) {
+        return SpawnTable.DEFAULT.pick(playerLevel, ThreadLocalRandom.current());
     }
+}
 
-    public void findItem(String itemName) {
-        eventManager.notifyItemFound(name, itemName);
-    }
+public class DesignPatterns {
+    // Counts notifications; safe to share between notifying threads
+    static class CountingListener implements GameEventListener {
+        final LongAdder notifications = new LongAdder();
+
+        @Override
+        public void onPlayerLevelUp(String playerName, int newLevel) { notifications.increment(); }
+
+        @Override
+        public void onPlayerDied(String playerName) { notifications.increment(); }
+
+        @Override
+        public void onItemFound(String playerName, String itemName) { notifications.increment(); }
+    }
+
+    private static void demoConcurrentListeners() {
+        GameEventManager manager = new GameEventManager();
+        CountingListener permanent = new CountingListener();
+        manager.addListener(permanent);
+
+        // A listener that unsubscribes itself on its first event - with a plain ArrayList this
+        // would throw ConcurrentModificationException from inside the notify loop
+        manager.addListener(new CountingListener() {
+            @Override
+            public void onPlayerLevelUp(String playerName, int newLevel) {
+                manager.removeListener(this);
+            }
+        });
+        manager.notifyPlayerLevelUp("Hero", 2);
+        System.out.println("Self-removing listener gone, listeners left: " + manager.getListenerCount());
+
+        int threads = 4;
+        int notificationsPerThread = 1_000_000;
+        Thread[] notifiers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            notifiers[t] = new Thread(() -> {
+                for (int i = 0; i < notificationsPerThread; i++) {
+                    manager.notifyPlayerLevelUp("Hero", i);
+                }
+            });
+        }
+        // Meanwhile another thread keeps subscribing and unsubscribing listeners
+        Thread churn = new Thread(() -> {
+            for (int i = 0; i < 100_000; i++) {
+                CountingListener temporary = new CountingListener();
+                manager.addListener(temporary);
+                manager.removeListener(temporary);
+            }
+        });
+
+        long start = System.nanoTime();
+        for (Thread notifier : notifiers) {
+            notifier.start();
+        }
+        churn.start();
+        try {
+            for (Thread notifier : notifiers) {
+                notifier.join();
+            }
+            churn.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        System.out.printf("%d threads: %d/%d notifications reached the permanent listener in %d ms, %d listener(s) registered%n",
+                threads, permanent.notifications.sum(), (long) threads * notificationsPerThread + 1,
+                (System.nanoTime() - start) / 1_000_000, manager.getListenerCount());
+    }
+
+    private static void demoEnemyPool() {
+        EnemySpawner spawner = new EnemySpawner();
+        BaseEnemy[] wave = new BaseEnemy[10_000];
+
+        // Wave makeup follows the spawn table's level bands
+        for (int level : new int[] {3, 10, 30}) {
+            int[] counts = new int[EnemyType.count()];
+            spawner.spawnWave(level, 1_000, wave);
+            for (int i = 0; i < 1_000; i++) {
+                counts[wave[i].getEnemyType().ordinal()]++;
+                spawner.release(wave[i]);
+                wave[i] = null;
+            }
+            System.out.printf("Level %2d wave of 1000: %d goblins, %d skeletons, %d dragons%n", level,
+                    counts[EnemyType.GOBLIN.ordinal()], counts[EnemyType.SKELETON.ordinal()], counts[EnemyType.DRAGON.ordinal()]);
+        }
 
-    public int attack() {
-        int damage = strategy.calculateDamage(baseDamage, level);
-        System.out.println(name + " attacks for " + damage + " damage using " +
-                strategy.getStrategyName() + " strategy");
-        return damage;
+        int waves = 200;
+        long kills = 0;
+        long start = System.nanoTime();
+        for (int w = 0; w < waves; w++) {
+            spawner.spawnWave(20, wave.length, wave);
+            for (int i = 0; i < wave.length; i++) {
+                BaseEnemy enemy = wave[i];
+                while (!enemy.takeDamage(40)) {
+                    // keep hitting until it drops
+                }
+                kills++;
+                spawner.release(enemy);
+                wave[i] = null;
+            }
+        }
+        System.out.printf("%d waves of %d: %d kills, %d enemies ever allocated, %d ms%n",
+                waves, wave.length, kills, spawner.getCreatedCount(), (System.nanoTime() - start) / 1_000_000);
     }
 
-    // Getters
-    public String getName() { return name; }
-    public int getLevel() { return level; }
-}
-
-public class DesignPatterns {
     public static void main(String[] args) {
         System.out.println("=== Design Patterns in Java ===");
 
@@ -281,7 +171,7 @@ public class DesignPatterns {
         AchievementSystem achievements = new AchievementSystem();
         StatisticsTracker stats = new StatisticsTracker();
 
-        eventManager.addListener(achievements);
+        eventManager.addListener(achievements, AchievementSystem.INTEREST);
         eventManager.addListener(stats);
 
         GameCharacter player = new GameCharacter("Hero", eventManager);
@@ -329,6 +219,10 @@ public class DesignPatterns {
             System.out.println("  " + randomEnemy.getType());
         }
 
+        // Waves are spawned from pools and recycled as enemies die
+        System.out.println("\n--- Enemy Pool ---");
+        demoEnemyPool();
+
         // Demonstrate pattern combinations
         System.out.println("\n--- Combining Patterns ---");
         GameCharacter player2 = new GameCharacter("Warrior", eventManager);
@@ -349,6 +243,10 @@ public class DesignPatterns {
         player2.levelUp();
         stats.printStatistics();
 
+        // The listener list may change while notifications are in flight
+        System.out.println("\n--- Concurrent Listeners ---");
+        demoConcurrentListeners();
+
         System.out.println("\n=== Design Patterns Demo Complete ===");
     }
 }
\ No newline at end of file
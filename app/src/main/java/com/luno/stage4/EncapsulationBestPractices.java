@@ -2,43 +2,137 @@ package com.luno.stage4;// Go to Java - Stage 4.1: Encapsulation Best Practices
 // Coming from Go: Java encapsulation is more explicit, composition similar
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Registry of canonical currencies, each with a small integer code. There is exactly one
+// CurrencyCode per ISO 4217 code, so code, identity and name comparisons all agree, and Money
+// can store just the int code. Names are trimmed and upper-cased ("usd" is USD) and must be
+// known to java.util.Currency, which also bounds how large the registry can grow.
+final class CurrencyCode {
+    private static final Map<String, CurrencyCode> BY_NAME = new ConcurrentHashMap<>();
+    private static volatile CurrencyCode[] byCode = new CurrencyCode[8];
+    private static int count;  // guarded by CurrencyCode.class
+
+    static final CurrencyCode USD = of("USD");
+    static final CurrencyCode EUR = of("EUR");
+    static final CurrencyCode GBP = of("GBP");
+
+    private final String name;
+    private final int code;
+
+    private CurrencyCode(String name, int code) {
+        this.name = name;
+        this.code = code;
+    }
+
+    // The canonical CurrencyCode for an ISO 4217 code, registering it the first time
+    public static CurrencyCode of(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Currency cannot be null or empty");
+        }
+        CurrencyCode currency = BY_NAME.get(name);  // fast path for names already in canonical form
+        if (currency != null) {
+            return currency;
+        }
+        String canonical = name.trim().toUpperCase(Locale.ROOT);
+        currency = BY_NAME.get(canonical);
+        return currency != null ? currency : register(canonical);
+    }
+
+    private static synchronized CurrencyCode register(String name) {
+        CurrencyCode existing = BY_NAME.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            java.util.Currency.getInstance(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown ISO 4217 currency: " + name);
+        }
+        CurrencyCode currency = new CurrencyCode(name, count++);
+        CurrencyCode[] table = byCode;
+        if (currency.code == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[currency.code] = currency;
+        byCode = table;  // publish before the code can be handed out
+        BY_NAME.put(name, currency);
+        return currency;
+    }
+
+    public static CurrencyCode byCode(int code) {
+        CurrencyCode[] table = byCode;
+        if (code < 0 || code >= table.length || table[code] == null) {
+            throw new IllegalArgumentException("Unknown currency code: " + code);
+        }
+        return table[code];
+    }
+
+    public String getName() { return name; }
+    public int getCode() { return code; }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
 
 // Immutable class example (like Go's readonly structs)
+// The currency is stored as its registry code, so a Money is two ints and currency checks are
+// an int compare. Amounts are int cents: add() throws ArithmeticException rather than wrapping
+// when the sum no longer fits (use MoneyAccumulator for large totals).
 final class Money {
     private final int cents;  // final = cannot be changed after construction
-    private final String currency;
+    private final int currencyCode;
 
     public Money(int cents, String currency) {
+        this(cents, CurrencyCode.of(currency));
+    }
+
+    public Money(int cents, CurrencyCode currency) {
         if (cents < 0) {
             throw new IllegalArgumentException("Cents cannot be negative");
         }
-        if (currency == null || currency.trim().isEmpty()) {
-            throw new IllegalArgumentException("Currency cannot be null or empty");
-        }
         this.cents = cents;
-        this.currency = currency;
+        this.currencyCode = currency.getCode();
+    }
+
+    private Money(int cents, int currencyCode) {
+        this.cents = cents;
+        this.currencyCode = currencyCode;
+    }
+
+    // For results of arithmetic on already valid Money: skips validation and the registry lookup
+    private static Money ofTrusted(int cents, int currencyCode) {
+        return new Money(cents, currencyCode);
     }
 
     // Only getters, no setters - immutable
     public int getCents() { return cents; }
-    public String getCurrency() { return currency; }
+    public int getCurrencyCode() { return currencyCode; }
+    public String getCurrency() { return CurrencyCode.byCode(currencyCode).getName(); }
 
-    // Return new instance instead of modifying (immutable pattern)
+    public boolean sameCurrency(Money other) {
+        return currencyCode == other.currencyCode;
+    }
+
+    // Return new instance instead of modifying (immutable pattern).
+    // Throws ArithmeticException if the total overflows int cents.
     public Money add(Money other) {
-        if (!this.currency.equals(other.currency)) {
+        if (!sameCurrency(other)) {
             throw new IllegalArgumentException("Cannot add different currencies");
         }
-        return new Money(this.cents + other.cents, this.currency);
+        return ofTrusted(Math.addExact(this.cents, other.cents), this.currencyCode);
     }
 
     public Money subtract(Money other) {
-        if (!this.currency.equals(other.currency)) {
+        if (!sameCurrency(other)) {
             throw new IllegalArgumentException("Cannot subtract different currencies");
         }
         if (this.cents < other.cents) {
             throw new IllegalArgumentException("Insufficient funds");
         }
-        return new Money(this.cents - other.cents, this.currency);
+        return ofTrusted(this.cents - other.cents, this.currencyCode);
     }
 
     @Override
@@ -46,17 +140,59 @@ final class Money {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Money money = (Money) obj;
-        return cents == money.cents && Objects.equals(currency, money.currency);
+        return cents == money.cents && currencyCode == money.currencyCode;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(cents, currency);
+        return 31 * cents + currencyCode;
     }
 
     @Override
     public String toString() {
-        return String.format("%.2f %s", cents / 100.0, currency);
+        return String.format("%.2f %s", cents / 100.0, getCurrency());
+    }
+}
+
+// Mutable running total for summing many Money values without creating a Money per step.
+// Holds cents in a long, so intermediate sums cannot overflow where Money's int would;
+// toMoney() checks the final total still fits.
+final class MoneyAccumulator {
+    private final int currencyCode;
+    private long cents;
+
+    public MoneyAccumulator(String currency) {
+        this(CurrencyCode.of(currency));
+    }
+
+    public MoneyAccumulator(CurrencyCode currency) {
+        this.currencyCode = currency.getCode();
+    }
+
+    public MoneyAccumulator add(Money amount) {
+        if (amount.getCurrencyCode() != currencyCode) {
+            throw new IllegalArgumentException("Cannot add " + amount.getCurrency() + " to a " + getCurrency() + " total");
+        }
+        cents += amount.getCents();
+        return this;
+    }
+
+    public MoneyAccumulator subtract(Money amount) {
+        if (amount.getCurrencyCode() != currencyCode) {
+            throw new IllegalArgumentException("Cannot subtract " + amount.getCurrency() + " from a " + getCurrency() + " total");
+        }
+        cents -= amount.getCents();
+        return this;
+    }
+
+    public long getCents() { return cents; }
+    public String getCurrency() { return CurrencyCode.byCode(currencyCode).getName(); }
+
+    public Money toMoney() {
+        if (cents < 0 || cents > Integer.MAX_VALUE) {
+            throw new ArithmeticException("Total of " + cents + " cents does not fit in Money");
+        }
+        return new Money((int) cents, CurrencyCode.byCode(currencyCode));
     }
 }
 
@@ -98,7 +234,7 @@ class BankAccount {
         if (amount.getCents() <= 0) {
             throw new IllegalArgumentException("Deposit amount must be positive");
         }
-        if (!amount.getCurrency().equals(balance.getCurrency())) {
+        if (!amount.sameCurrency(balance)) {
             throw new IllegalArgumentException("Currency mismatch");
         }
 
@@ -110,7 +246,7 @@ class BankAccount {
         if (amount.getCents() <= 0) {
             throw new IllegalArgumentException("Withdrawal amount must be positive");
         }
-        if (!amount.getCurrency().equals(balance.getCurrency())) {
+        if (!amount.sameCurrency(balance)) {
             throw new IllegalArgumentException("Currency mismatch");
         }
 
@@ -191,14 +327,14 @@ class Customer {
 
     public Money getTotalBalance() {
         if (accounts.isEmpty()) {
-            return new Money(0, "USD");
+            return new Money(0, CurrencyCode.USD);
         }
 
-        Money total = accounts.get(0).getBalance();
-        for (int i = 1; i < accounts.size(); i++) {
-            total = total.add(accounts.get(i).getBalance());
+        MoneyAccumulator total = new MoneyAccumulator(CurrencyCode.byCode(accounts.get(0).getBalance().getCurrencyCode()));
+        for (BankAccount account : accounts) {
+            total.add(account.getBalance());
         }
-        return total;
+        return total.toMoney();
     }
 
     @Override
@@ -208,6 +344,32 @@ class Customer {
 }
 
 public class EncapsulationBestPractices {
+    private static void demoBulkSums() {
+        Money[] balances = new Money[1_000_000];
+        for (int i = 0; i < balances.length; i++) {
+            balances[i] = new Money(i % 1000, CurrencyCode.USD);
+        }
+        for (int pass = 0; pass < 3; pass++) {  // later passes run JIT-compiled code
+            long start = System.nanoTime();
+            Money chained = new Money(0, CurrencyCode.USD);
+            for (Money balance : balances) {
+                chained = chained.add(balance);
+            }
+            long chainedNs = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            MoneyAccumulator accumulator = new MoneyAccumulator(CurrencyCode.USD);
+            for (Money balance : balances) {
+                accumulator.add(balance);
+            }
+            long accumulatedNs = System.nanoTime() - start;
+            if (pass == 2) {
+                System.out.printf("%d balances: chained add %s in %.1f ms, accumulator %s in %.1f ms%n",
+                        balances.length, chained, chainedNs / 1e6, accumulator.toMoney(), accumulatedNs / 1e6);
+            }
+        }
+    }
+
     public static void main(String[] args) {
         System.out.println("=== Encapsulation and Composition Best Practices ===");
 
@@ -289,6 +451,10 @@ public class EncapsulationBestPractices {
             System.out.println("Currency mismatch: " + e.getMessage());
         }
 
+        // Summing many balances: chained immutable adds vs one accumulator
+        System.out.println("\n--- Bulk Sums ---");
+        demoBulkSums();
+
         System.out.println("\n=== Encapsulation Demo Complete ===");
     }
 }
\ No newline at end of file
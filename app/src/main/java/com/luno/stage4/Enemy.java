@@ -0,0 +1,8 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+// Factory Pattern - creating objects without specifying exact class
+interface Enemy {
+    void attack();
+    int getHealth();
+    String getType();
+}
@@ -0,0 +1,68 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Hands out enemies from per-type pools and takes them back when they die, so spawning wave
+// after wave reuses the same instances instead of allocating new ones. Once the pools have
+// grown to the largest wave, spawnWave allocates nothing. Not thread-safe: use one spawner
+// per game world / thread.
+class EnemySpawner {
+    private final SpawnTable spawnTable;
+    private final BaseEnemy[][] pools = new BaseEnemy[EnemyType.count()][16];
+    private final int[] poolSizes = new int[EnemyType.count()];
+    private long created;
+
+    public EnemySpawner() {
+        this(SpawnTable.DEFAULT);
+    }
+
+    public EnemySpawner(SpawnTable spawnTable) {
+        this.spawnTable = spawnTable;
+    }
+
+    public BaseEnemy spawn(EnemyType type) {
+        int t = type.ordinal();
+        if (poolSizes[t] == 0) {
+            created++;
+            return type.create();
+        }
+        BaseEnemy enemy = pools[t][--poolSizes[t]];
+        pools[t][poolSizes[t]] = null;
+        enemy.pooled = false;
+        enemy.reset();
+        return enemy;
+    }
+
+    // Fills out[0..count) with enemies drawn from the spawn table's band for the player level
+    public void spawnWave(int playerLevel, int count, BaseEnemy[] out) {
+        if (count > out.length) {
+            throw new IllegalArgumentException("Wave of " + count + " does not fit in " + out.length + " slots");
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < count; i++) {
+            out[i] = spawn(spawnTable.pick(playerLevel, random));
+        }
+    }
+
+    // Returns a dead (or no longer needed) enemy to its pool; the caller must drop its reference
+    public void release(BaseEnemy enemy) {
+        if (enemy.pooled) {
+            throw new IllegalStateException(enemy.getType() + " released twice");
+        }
+        enemy.pooled = true;
+        int t = enemy.getEnemyType().ordinal();
+        if (poolSizes[t] == pools[t].length) {
+            pools[t] = Arrays.copyOf(pools[t], pools[t].length * 2);
+        }
+        pools[t][poolSizes[t]++] = enemy;
+    }
+
+    public long getCreatedCount() {
+        return created;
+    }
+
+    public int getPooledCount(EnemyType type) {
+        return poolSizes[type.ordinal()];
+    }
+}
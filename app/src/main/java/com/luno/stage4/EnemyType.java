@@ -0,0 +1,68 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+import java.util.function.Supplier;
+
+// Registry of enemy kinds: stats and how to build one live here, so lookups by name and
+// random picks need no string juggling. Each constant names its own constructor, so a new
+// type cannot compile without saying how to build it.
+enum EnemyType {
+    GOBLIN("Goblin", 30, 4, "Goblin swipes with claws!", Goblin::new),
+    SKELETON("Skeleton", 50, 7, "Skeleton shoots arrows!", Skeleton::new),
+    DRAGON("Dragon", 200, 25, "Dragon breathes fire!", Dragon::new);
+
+    private static final EnemyType[] VALUES = values();
+
+    private final String displayName;
+    private final int maxHealth;
+    private final int attackDamage;
+    private final String attackLine;
+    private final Supplier<BaseEnemy> factory;
+
+    EnemyType(String displayName, int maxHealth, int attackDamage, String attackLine, Supplier<BaseEnemy> factory) {
+        this.displayName = displayName;
+        this.maxHealth = maxHealth;
+        this.attackDamage = attackDamage;
+        this.attackLine = attackLine;
+        this.factory = factory;
+    }
+
+    public String getDisplayName() { return displayName; }
+    public int getMaxHealth() { return maxHealth; }
+    public int getAttackDamage() { return attackDamage; }
+    public String getAttackLine() { return attackLine; }
+
+    BaseEnemy create() {
+        return factory.get();
+    }
+
+    // Case-insensitive lookup without allocating a lowercased copy; null if unknown
+    static EnemyType fromName(String name) {
+        for (EnemyType type : VALUES) {
+            if (type.displayName.equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    static EnemyType byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    static int count() {
+        return VALUES.length;
+    }
+}
+
+// The concrete enemies EnemyType.create() builds
+class Goblin extends BaseEnemy {
+    Goblin() { super(EnemyType.GOBLIN); }
+}
+
+class Dragon extends BaseEnemy {
+    Dragon() { super(EnemyType.DRAGON); }
+}
+
+class Skeleton extends BaseEnemy {
+    Skeleton() { super(EnemyType.SKELETON); }
+}
@@ -0,0 +1,151 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+import java.util.*;
+
+// Event bus for managing events
+class EventBus {
+    private final Map<Class<? extends GameEvent>, List<EventHandler<? extends GameEvent>>> handlers;
+    private final List<GameEvent> eventHistory;
+    private EventJournal journal;  // optional durable log, null = in-memory only
+    private EventBusMetrics metrics;  // optional instrumentation, null = none
+    private TopicRouter topics;  // created on the first topic subscription
+    private final Map<Class<? extends GameEvent>, List<EventCoalescer<?>>> coalescers = new HashMap<>();
+    private boolean replaying;
+
+    public EventBus() {
+        this.handlers = new HashMap<>();
+        this.eventHistory = new ArrayList<>();
+    }
+
+    // Every event published from now on is also appended to the journal
+    public void attachJournal(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    // Subscribes to events by topic pattern, e.g. "COMBAT.*" or "ITEM.FOUND.Legendary",
+    // in addition to the class-based handlers
+    public void subscribe(String topicPattern, TopicHandler handler) {
+        if (topics == null) {
+            topics = new TopicRouter();
+        }
+        topics.subscribe(topicPattern, handler);
+    }
+
+    public boolean unsubscribe(String topicPattern, TopicHandler handler) {
+        return topics != null && topics.unsubscribe(topicPattern, handler);
+    }
+
+    // Publish counts and per-handler latency/errors are recorded from now on
+    public void attachMetrics(EventBusMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends GameEvent> void registerHandler(EventHandler<T> handler) {
+        Class<T> eventType = handler.getEventType();
+        handlers.computeIfAbsent(eventType, k -> new ArrayList<>()).add(handler);
+    }
+
+    // Buffers matching events for up to windowMillis and delivers one merged event per key.
+    // Buffered events are delivered on the first publish after the window closes, or by
+    // flushCoalesced() - call it at the end of a tick or burst so nothing waits for the next publish.
+    public <T extends GameEvent> void registerCoalescingHandler(CoalescingEventHandler<T> handler, long windowMillis) {
+        coalescers.computeIfAbsent(handler.getEventType(), k -> new ArrayList<>())
+                .add(new EventCoalescer<>(handler, windowMillis));
+    }
+
+    public void flushCoalesced() {
+        EventBusMetrics activeMetrics = activeMetrics();
+        for (List<EventCoalescer<?>> pending : coalescers.values()) {
+            for (EventCoalescer<?> coalescer : pending) {
+                coalescer.flush(activeMetrics);
+            }
+        }
+    }
+
+    public <T extends GameEvent> void publishEvent(T event) {
+        if (replaying) {
+            // Events published by handlers during replay were journaled the first time round
+            return;
+        }
+        eventHistory.add(event);
+        if (journal != null) {
+            journal.append(event);
+        }
+        dispatch(event, false);
+    }
+
+    // Publishes events in order, e.g. everything one game tick produced
+    public void publishBatch(List<? extends GameEvent> events) {
+        for (GameEvent event : events) {
+            publishEvent(event);
+        }
+    }
+
+    // Feeds a journaled event back through the handlers without recording it again
+    void replayEvent(GameEvent event) {
+        replaying = true;
+        try {
+            dispatch(event, true);
+        } finally {
+            replaying = false;
+        }
+    }
+
+    // Delivers whatever replayed events are still buffered by coalescing handlers, still in replay mode
+    void finishReplay() {
+        replaying = true;
+        try {
+            flushCoalesced();
+        } finally {
+            replaying = false;
+        }
+    }
+
+    private EventBusMetrics activeMetrics() {
+        return (metrics != null && metrics.isEnabled()) ? metrics : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends GameEvent> void dispatch(T event, boolean replay) {
+        EventBusMetrics activeMetrics = activeMetrics();
+        if (activeMetrics != null) {
+            if (replay) {
+                activeMetrics.recordReplay(event.getEventType());
+            } else {
+                activeMetrics.recordPublish(event.getEventType());
+            }
+        }
+        List<EventHandler<? extends GameEvent>> eventHandlers = handlers.get(event.getClass());
+        if (eventHandlers != null) {
+            for (EventHandler<? extends GameEvent> handler : eventHandlers) {
+                try {
+                    if (activeMetrics != null) {
+                        activeMetrics.invoke((EventHandler<T>) handler, event);
+                    } else {
+                        ((EventHandler<T>) handler).handle(event);
+                    }
+                } catch (Exception e) {
+                    System.err.println("Error handling event: " + e.getMessage());
+                }
+            }
+        }
+        List<EventCoalescer<?>> eventCoalescers = coalescers.get(event.getClass());
+        if (eventCoalescers != null) {
+            for (EventCoalescer<?> coalescer : eventCoalescers) {
+                ((EventCoalescer<T>) coalescer).offer(event, activeMetrics);
+            }
+        }
+        if (topics != null) {
+            topics.route(event, activeMetrics);
+        }
+    }
+
+    public List<GameEvent> getEventHistory() {
+        return new ArrayList<>(eventHistory);
+    }
+
+    public void clearHistory() {
+        eventHistory.clear();
+    }
+}
@@ -0,0 +1,317 @@
+package com.luno.stage4;// Go to Java - Stage 4.13: Event Bus Instrumentation
+// Coming from Go: expvar counters plus a latency histogram, with JFR playing the role of runtime/trace
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import jdk.jfr.*;
+
+// JFR events, visible in JDK Mission Control when a recording is running
+@Name("com.luno.stage4.HandlerInvocation")
+@Label("Event Handler Invocation")
+@Category({"Game", "Event Bus"})
+@StackTrace(false)
+class HandlerInvocationEvent extends jdk.jfr.Event {
+    @Label("Handler")
+    String handler;
+
+    @Label("Event Type")
+    String eventType;
+
+    @Label("Failed")
+    boolean failed;
+}
+
+@Name("com.luno.stage4.QueueDepth")
+@Label("Event Queue Depth")
+@Category({"Game", "Event Bus"})
+@Period("1 s")
+@StackTrace(false)
+class QueueDepthEvent extends jdk.jfr.Event {
+    @Label("Queue")
+    String queue;
+
+    @Label("Depth")
+    long depth;
+}
+
+// Opt-in instrumentation for EventBus. A bus without metrics attached pays one null check
+// per publish; with metrics attached, setEnabled(false) turns recording back into a flag check.
+//
+// Collected: publish counts per event type (journal replays counted separately), latency
+// histogram and error count per handler - class-based, coalescing and topic subscribers alike -
+// and queue depth gauges registered by asynchronous components (shards, log sinks).
+// The JFR queue depth hook is only installed once a gauge is registered; close() removes it.
+public class EventBusMetrics implements AutoCloseable {
+    private static final EventType INVOCATION_EVENT = EventType.getEventType(HandlerInvocationEvent.class);
+
+    private final Map<String, LongAdder> publishCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> replayCounts = new ConcurrentHashMap<>();
+    private final Map<Object, HandlerStats> handlerStats = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> queueDepths = new ConcurrentHashMap<>();
+    private final Runnable queueDepthHook = this::emitQueueDepths;
+    private boolean queueDepthHookInstalled;  // guarded by this
+    private volatile boolean enabled = true;
+
+    private static final class HandlerStats {
+        final String name;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+
+        HandlerStats(String name) {
+            this.name = name;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    void recordPublish(String eventType) {
+        publishCounts.computeIfAbsent(eventType, k -> new LongAdder()).increment();
+    }
+
+    // Journaled events fed back through the handlers; kept apart so recovery does not inflate live traffic
+    void recordReplay(String eventType) {
+        replayCounts.computeIfAbsent(eventType, k -> new LongAdder()).increment();
+    }
+
+    // Runs the handler, timing it and counting failures; exceptions are rethrown to the bus
+    <T extends GameEvent> void invoke(EventHandler<T> handler, T event) {
+        HandlerStats stats = handlerStats.computeIfAbsent(handler, h -> new HandlerStats(nameOf((EventHandler<?>) h)));
+        HandlerInvocationEvent jfrEvent = beginInvocation();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            handler.handle(event);
+            failed = false;
+        } finally {
+            endInvocation(stats, jfrEvent, start, event, failed);
+        }
+    }
+
+    // Same for one merged delivery to a coalescing handler
+    <T extends GameEvent> void invokeCoalesced(CoalescingEventHandler<T> handler, T latest, int count) {
+        HandlerStats stats = handlerStats.computeIfAbsent(handler,
+                h -> new HandlerStats(nameOf((CoalescingEventHandler<?>) h)));
+        HandlerInvocationEvent jfrEvent = beginInvocation();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            handler.handleCoalesced(latest, count);
+            failed = false;
+        } finally {
+            endInvocation(stats, jfrEvent, start, latest, failed);
+        }
+    }
+
+    // Same for a topic subscriber
+    void invokeTopic(TopicHandler handler, String topic, GameEvent event) {
+        HandlerStats stats = handlerStats.computeIfAbsent(handler, h -> new HandlerStats(nameOf((TopicHandler) h)));
+        HandlerInvocationEvent jfrEvent = beginInvocation();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            handler.onEvent(topic, event);
+            failed = false;
+        } finally {
+            endInvocation(stats, jfrEvent, start, event, failed);
+        }
+    }
+
+    private static HandlerInvocationEvent beginInvocation() {
+        if (!INVOCATION_EVENT.isEnabled()) {
+            return null;
+        }
+        HandlerInvocationEvent jfrEvent = new HandlerInvocationEvent();
+        jfrEvent.begin();
+        return jfrEvent;
+    }
+
+    private static void endInvocation(HandlerStats stats, HandlerInvocationEvent jfrEvent, long start,
+                                      GameEvent event, boolean failed) {
+        stats.latency.record(System.nanoTime() - start);
+        if (failed) {
+            stats.errors.increment();
+        }
+        if (jfrEvent != null) {
+            jfrEvent.end();
+            if (jfrEvent.shouldCommit()) {
+                jfrEvent.handler = stats.name;
+                jfrEvent.eventType = event.getEventType();
+                jfrEvent.failed = failed;
+                jfrEvent.commit();
+            }
+        }
+    }
+
+    private static String nameOf(EventHandler<?> handler) {
+        return handler.getClass().getSimpleName() + "<" + handler.getEventType().getSimpleName() + ">";
+    }
+
+    private static String nameOf(CoalescingEventHandler<?> handler) {
+        return handler.getClass().getSimpleName() + "<" + handler.getEventType().getSimpleName() + "> coalesced";
+    }
+
+    // Topic subscribers are often lambdas, whose generated class names are noise; name them by
+    // the declaring class plus identity so two subscriptions from one class stay apart
+    private static String nameOf(TopicHandler handler) {
+        String name = handler.getClass().getSimpleName();
+        int lambda = name.indexOf("$$Lambda");
+        if (lambda >= 0) {
+            name = name.substring(0, lambda) + " lambda";
+        }
+        return "topic " + name + "@" + Integer.toHexString(System.identityHashCode(handler));
+    }
+
+    // The JFR periodic hook keeps this instance reachable, so it is only installed when there are
+    // gauges to report and is removed again by close()
+    public void registerQueueDepth(String queue, LongSupplier depth) {
+        queueDepths.put(queue, depth);
+        synchronized (this) {
+            if (!queueDepthHookInstalled) {
+                FlightRecorder.addPeriodicEvent(QueueDepthEvent.class, queueDepthHook);
+                queueDepthHookInstalled = true;
+            }
+        }
+    }
+
+    private void emitQueueDepths() {
+        for (Map.Entry<String, LongSupplier> gauge : queueDepths.entrySet()) {
+            QueueDepthEvent event = new QueueDepthEvent();
+            event.queue = gauge.getKey();
+            event.depth = gauge.getValue().getAsLong();
+            event.commit();
+        }
+    }
+
+    // Stops the periodic JFR queue depth events
+    @Override
+    public synchronized void close() {
+        if (queueDepthHookInstalled) {
+            FlightRecorder.removePeriodicEvent(queueDepthHook);
+            queueDepthHookInstalled = false;
+        }
+    }
+
+    public Snapshot snapshot() {
+        Map<String, Long> publishes = new TreeMap<>();
+        publishCounts.forEach((type, count) -> publishes.put(type, count.sum()));
+        Map<String, Long> replays = new TreeMap<>();
+        replayCounts.forEach((type, count) -> replays.put(type, count.sum()));
+
+        List<HandlerSnapshot> handlers = new ArrayList<>();
+        for (HandlerStats stats : handlerStats.values()) {
+            LatencyHistogram latency = stats.latency;
+            handlers.add(new HandlerSnapshot(stats.name, latency.getCount(), stats.errors.sum(),
+                    latency.percentile(50), latency.percentile(99), latency.percentile(99.9), latency.getMax()));
+        }
+        handlers.sort(Comparator.comparing(h -> h.handler));
+
+        Map<String, Long> depths = new TreeMap<>();
+        queueDepths.forEach((queue, depth) -> depths.put(queue, depth.getAsLong()));
+        return new Snapshot(publishes, replays, handlers, depths);
+    }
+
+    static final class HandlerSnapshot {
+        final String handler;
+        final long invocations;
+        final long errors;
+        final long p50Nanos;
+        final long p99Nanos;
+        final long p999Nanos;
+        final long maxNanos;
+
+        HandlerSnapshot(String handler, long invocations, long errors, long p50Nanos, long p99Nanos,
+                        long p999Nanos, long maxNanos) {
+            this.handler = handler;
+            this.invocations = invocations;
+            this.errors = errors;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maxNanos = maxNanos;
+        }
+    }
+
+    // Immutable point-in-time copy of all metrics
+    static final class Snapshot {
+        final Map<String, Long> publishCounts;
+        final Map<String, Long> replayCounts;
+        final List<HandlerSnapshot> handlers;
+        final Map<String, Long> queueDepths;
+
+        Snapshot(Map<String, Long> publishCounts, Map<String, Long> replayCounts, List<HandlerSnapshot> handlers,
+                 Map<String, Long> queueDepths) {
+            this.publishCounts = Collections.unmodifiableMap(publishCounts);
+            this.replayCounts = Collections.unmodifiableMap(replayCounts);
+            this.handlers = Collections.unmodifiableList(handlers);
+            this.queueDepths = Collections.unmodifiableMap(queueDepths);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append("Publishes: ").append(publishCounts).append('\n');
+            if (!replayCounts.isEmpty()) {
+                report.append("Replays: ").append(replayCounts).append('\n');
+            }
+            for (HandlerSnapshot h : handlers) {
+                report.append(String.format("  %-20s calls=%d errors=%d p50=%dns p99=%dns p99.9=%dns max=%dns%n",
+                        h.handler, h.invocations, h.errors, h.p50Nanos, h.p99Nanos, h.p999Nanos, h.maxNanos));
+            }
+            if (!queueDepths.isEmpty()) {
+                report.append("Queue depths: ").append(queueDepths).append('\n');
+            }
+            return report.toString();
+        }
+    }
+
+    // Fails every 1000th event, to show up in the error counts
+    static final class FlakyHandler implements EventHandler<ItemEvent> {
+        private int seen;
+
+        @Override
+        public void handle(ItemEvent event) {
+            if (++seen % 1000 == 0) {
+                throw new IllegalStateException("flaky handler failed on item " + seen);
+            }
+        }
+
+        @Override
+        public Class<ItemEvent> getEventType() { return ItemEvent.class; }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== Event Bus Instrumentation ===");
+        EventBus eventBus = new EventBus();
+        eventBus.registerHandler(new QuestHandler(eventBus));
+        eventBus.registerHandler(new GameServerLoop.CountingHandler<>(CombatEvent.class));
+        eventBus.registerHandler(new FlakyHandler());
+        long[] legendaryDrops = new long[1];
+        eventBus.subscribe("ITEM.FOUND.Legendary", (topic, event) -> legendaryDrops[0]++);
+
+        EventBusMetrics metrics = new EventBusMetrics();
+        eventBus.attachMetrics(metrics);
+
+        String[] enemies = {"Goblin", "Orc", "Skeleton", "Dragon"};
+        for (int i = 0; i < 200_000; i++) {
+            String player = "Player" + (i % 500);
+            eventBus.publishEvent(new CombatEvent(player, enemies[i & 3], 20, false));
+            eventBus.publishEvent(new PlayerActionEvent("MOVE", player));
+            if (i % 40 == 0) {
+                eventBus.publishEvent(new ItemEvent("FOUND", player, "Sword", i % 400 == 0 ? "Legendary" : "Common"));
+            }
+            if (i % 10_000 == 0) {
+                eventBus.clearHistory();
+            }
+        }
+        System.out.print(metrics.snapshot());
+        metrics.close();
+    }
+}
@@ -0,0 +1,199 @@
+package com.luno.stage4;// Go to Java - Stage 4.5: Handler Checkpoints
+// Coming from Go: Like gob-encoding state to a temp file and os.Rename-ing it into place
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Saves the state of checkpointable handlers tagged with the journal sequence it reflects.
+// Recovery loads the newest checkpoint and replays only the journal tail after it,
+// so restart time depends on how long ago the last checkpoint was, not on total history.
+// The two newest checkpoints are kept, and the journal is only pruned up to the older of
+// them, so falling back to it when the newest cannot be read still finds every later event.
+//
+// File layout: magic(4) sequence(8) handlerCount(4) then per handler: name(UTF) length(4) state(length)
+public class EventCheckpoints {
+    private static final int MAGIC = 0x43484b50;  // "CHKP"
+    private static final String PREFIX = "checkpoint-";
+    private static final String SUFFIX = ".bin";
+    private static final int CHECKPOINTS_KEPT = 2;
+
+    private final Path directory;
+    private final List<CheckpointableHandler> handlers = new ArrayList<>();
+
+    public EventCheckpoints(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    public void addHandler(CheckpointableHandler handler) {
+        handlers.add(handler);
+    }
+
+    // Flushes the bus's coalescing handlers first, so state they have buffered but not yet
+    // applied is included in the checkpoint
+    public long checkpoint(EventJournal journal, EventBus eventBus) throws IOException {
+        eventBus.flushCoalesced();
+        return checkpoint(journal);
+    }
+
+    // Commits the journal, then writes every handler's state at the journal's last sequence.
+    // Journal segments fully covered by the oldest kept checkpoint are deleted afterwards.
+    public long checkpoint(EventJournal journal) throws IOException {
+        journal.commit();
+        long sequence = journal.getNextSequence() - 1;
+
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeLong(sequence);
+            out.writeInt(handlers.size());
+            for (CheckpointableHandler handler : handlers) {
+                ByteArrayOutputStream state = new ByteArrayOutputStream();
+                handler.writeCheckpoint(new DataOutputStream(state));
+                out.writeUTF(handler.getCheckpointName());
+                out.writeInt(state.size());
+                state.writeTo(out);
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        // Rename is atomic, so a crash leaves either the old or the new checkpoint, never half of one
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+
+        pruneOldCheckpoints();
+        journal.deleteSegmentsCoveredBy(checkpointSequence(listCheckpoints().get(0)));
+        return sequence;
+    }
+
+    // Makes the rename itself durable, not just the file contents
+    private void syncDirectory() throws IOException {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (AccessDeniedException e) {
+            // Windows cannot open a directory as a channel; NTFS makes the rename durable itself
+        }
+    }
+
+    // Restores handler state from the newest readable checkpoint and replays the journal tail.
+    // Returns the last sequence applied. Fails if no checkpoint can be read and the journal no
+    // longer starts at sequence 1: replaying what is left would silently lose the pruned events.
+    public long recover(EventJournal journal, EventBus eventBus) throws IOException {
+        long sequence = 0;
+        boolean restored = false;
+        List<Path> checkpoints = listCheckpoints();
+        for (int i = checkpoints.size() - 1; i >= 0 && !restored; i--) {
+            try {
+                sequence = restore(checkpoints.get(i));
+                restored = true;
+            } catch (IOException e) {
+                System.err.println("Skipping unreadable checkpoint " + checkpoints.get(i) + ": " + e.getMessage());
+            }
+        }
+        if (!restored) {
+            List<Path> segments = journal.listSegments();
+            long firstKept = segments.isEmpty() ? 1 : EventJournal.segmentStart(segments.get(0));
+            if (firstKept > 1) {
+                throw new IOException("No readable checkpoint among " + checkpoints.size()
+                        + " and the journal was pruned up to sequence " + (firstKept - 1)
+                        + "; cannot rebuild handler state");
+            }
+        }
+        return journal.replay(sequence + 1, eventBus);
+    }
+
+    private long restore(Path checkpoint) throws IOException {
+        Map<String, byte[]> states = new HashMap<>();
+        long sequence;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a checkpoint file");
+            }
+            sequence = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] state = new byte[in.readInt()];
+                in.readFully(state);
+                states.put(name, state);
+            }
+        }
+
+        // Parse every handler's state first and only install it once all of it has been read
+        List<Runnable> installs = new ArrayList<>();
+        for (CheckpointableHandler handler : handlers) {
+            byte[] state = states.get(handler.getCheckpointName());
+            if (state != null) {
+                installs.add(handler.readCheckpoint(new DataInputStream(new ByteArrayInputStream(state))));
+            }
+        }
+        for (Runnable install : installs) {
+            install.run();
+        }
+        return sequence;
+    }
+
+    private void pruneOldCheckpoints() throws IOException {
+        List<Path> checkpoints = listCheckpoints();
+        for (int i = 0; i < checkpoints.size() - CHECKPOINTS_KEPT; i++) {
+            Files.delete(checkpoints.get(i));
+        }
+    }
+
+    private static long checkpointSequence(Path checkpoint) {
+        String name = checkpoint.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private List<Path> listCheckpoints() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("=== Handler Checkpoints ===");
+        Path directory = Files.createTempDirectory("event-checkpoints");
+        Path journalDir = directory.resolve("journal");
+
+        EventBus eventBus = new EventBus();
+        QuestHandler questHandler = new QuestHandler(eventBus);
+        eventBus.registerHandler(questHandler);
+        EventCheckpoints checkpoints = new EventCheckpoints(directory);
+        checkpoints.addHandler(questHandler);
+
+        try (EventJournal journal = EventJournal.open(journalDir, 4 * 1024, 64)) {
+            eventBus.attachJournal(journal);
+            for (int i = 1; i <= 500; i++) {
+                eventBus.publishEvent(new PlayerActionEvent("KILL_ENEMY", "Conan", "enemyType", "Orc"));
+                if (i % 200 == 0) {
+                    System.out.println("Checkpoint at sequence " + checkpoints.checkpoint(journal));
+                }
+            }
+        }
+
+        System.out.println("\n--- Recovery ---");
+        EventBus recoveredBus = new EventBus();
+        QuestHandler recoveredQuests = new QuestHandler(recoveredBus);
+        recoveredBus.registerHandler(recoveredQuests);
+        EventCheckpoints recovery = new EventCheckpoints(directory);
+        recovery.addHandler(recoveredQuests);
+        try (EventJournal journal = EventJournal.open(journalDir, 4 * 1024, 64)) {
+            System.out.println("Recovered through sequence " + recovery.recover(journal, recoveredBus)
+                    + " with " + journal.listSegments().size() + " journal segments left on disk");
+            System.out.println("Conan's Orc kills: " + recoveredQuests.getKills("Conan", "Orc"));
+            System.out.println("Quest kill-orc progress: " + recoveredQuests.getQuestProgress("Conan", "kill-orc"));
+        }
+    }
+}
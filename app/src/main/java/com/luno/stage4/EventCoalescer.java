@@ -0,0 +1,144 @@
+package com.luno.stage4;// Go to Java - Stage 4.15: Coalescing High-Frequency Events
+// Coming from Go: Like debouncing a channel - collect for a window, then send one summary per key
+
+import java.util.*;
+
+// Buffers events for one CoalescingEventHandler. Within a window, events with the same key
+// collapse into a single entry holding the latest event and how many were merged; when the
+// window closes every entry is delivered once, in the order its key first appeared.
+//
+// Keys map to buffer slots through a primitive long->int map, so buffering a repeat key
+// allocates nothing. Used from the EventBus thread only.
+final class EventCoalescer<T extends GameEvent> {
+    private final CoalescingEventHandler<T> handler;
+    private final long windowNanos;
+    private final LongIntCounterMap slotByKey = new LongIntCounterMap();  // key -> slot + 1
+
+    private GameEvent[] latest = new GameEvent[64];
+    private int[] counts = new int[64];
+    private int size;
+    private long windowStart;
+
+    EventCoalescer(CoalescingEventHandler<T> handler, long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Window cannot be negative: " + windowMillis);
+        }
+        this.handler = handler;
+        this.windowNanos = windowMillis * 1_000_000;
+    }
+
+    // metrics may be null; when set, deliveries triggered by this offer are timed
+    void offer(T event, EventBusMetrics metrics) {
+        long now = System.nanoTime();
+        if (size > 0 && now - windowStart >= windowNanos) {
+            flush(metrics);
+        }
+        if (size == 0) {
+            windowStart = now;
+        }
+
+        long key = handler.coalesceKey(event);
+        int slot = slotByKey.get(key) - 1;
+        if (slot < 0) {
+            slot = size++;
+            if (slot == latest.length) {
+                latest = Arrays.copyOf(latest, slot * 2);
+                counts = Arrays.copyOf(counts, slot * 2);
+            }
+            slotByKey.addTo(key, slot + 1);
+            counts[slot] = 0;
+        }
+        latest[slot] = event;
+        counts[slot]++;
+    }
+
+    // Delivers everything buffered so far, whether or not the window has closed
+    @SuppressWarnings("unchecked")
+    void flush(EventBusMetrics metrics) {
+        int pending = size;
+        // Reset first: a handler may publish events that come straight back to this coalescer
+        size = 0;
+        slotByKey.clear();
+        GameEvent[] events = latest;
+        int[] merged = counts;
+        latest = new GameEvent[events.length];
+        counts = new int[merged.length];
+
+        for (int i = 0; i < pending; i++) {
+            try {
+                if (metrics != null) {
+                    metrics.invokeCoalesced(handler, (T) events[i], merged[i]);
+                } else {
+                    handler.handleCoalesced((T) events[i], merged[i]);
+                }
+            } catch (Exception e) {
+                System.err.println("Error handling coalesced event: " + e.getMessage());
+            }
+        }
+    }
+
+    int pendingKeys() {
+        return size;
+    }
+
+    // Counts how often the wrapped QuestHandler is actually invoked, however it is registered
+    static final class CountingQuests implements EventHandler<PlayerActionEvent>, CoalescingEventHandler<PlayerActionEvent> {
+        final QuestHandler quests;
+        long calls;
+
+        CountingQuests(QuestHandler quests) { this.quests = quests; }
+
+        @Override
+        public void handle(PlayerActionEvent event) {
+            calls++;
+            quests.handle(event);
+        }
+
+        @Override
+        public long coalesceKey(PlayerActionEvent event) { return quests.coalesceKey(event); }
+
+        @Override
+        public void handleCoalesced(PlayerActionEvent latest, int count) {
+            calls++;
+            quests.handleCoalesced(latest, count);
+        }
+
+        @Override
+        public Class<PlayerActionEvent> getEventType() { return PlayerActionEvent.class; }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== Coalescing High-Frequency Events ===");
+        String[] enemies = {"Goblin", "Orc", "Skeleton", "Dragon"};
+        String[] players = new String[20];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = "Player" + i;
+        }
+        int kills = 2_000_000;
+
+        for (boolean coalesce : new boolean[] {false, true}) {
+            EventBus eventBus = new EventBus();
+            // A kill target nobody reaches, so the demo measures dispatch rather than reward printing
+            CountingQuests counted = new CountingQuests(new QuestHandler(Integer.MAX_VALUE));
+            if (coalesce) {
+                eventBus.registerCoalescingHandler(counted, 50);
+            } else {
+                eventBus.registerHandler(counted);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < kills; i++) {
+                eventBus.publishEvent(new PlayerActionEvent("KILL_ENEMY", players[i % players.length], "enemyType", enemies[i & 3]));
+                if ((i & 0xFFFF) == 0) {
+                    eventBus.clearHistory();
+                }
+            }
+            eventBus.flushCoalesced();
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.printf("%-11s %,9d handler calls for %,d kills, Player0 Goblin kills=%d, %d ms%n",
+                    coalesce ? "coalesced:" : "per event:", counted.calls, kills,
+                    counted.quests.getKills("Player0", "Goblin"), elapsedMs);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.luno.stage4;// Go to Java - Stage 4.4: Durable Event Journal
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Compact binary encoding for the three game event types.
+// Record body: seq(8) kind(1) timestamp(8) followed by kind-specific fields.
+// Strings are length(4) plus UTF-8 bytes; player action parameters are count(4) then key/tagged value pairs.
+final class EventCodec {
+    static final byte KIND_PLAYER_ACTION = 1;
+    static final byte KIND_COMBAT = 2;
+    static final byte KIND_ITEM = 3;
+
+    // Combat flag bits
+    private static final byte FLAG_CRITICAL = 1;
+    private static final byte FLAG_PLAYER_TARGET = 2;
+
+    // Value tags for the free-form PlayerActionEvent parameters
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_INT = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_BOOLEAN = 4;
+    private static final byte TAG_DOUBLE = 5;
+
+    private EventCodec() {}
+
+    static void encode(long sequence, GameEvent event, ByteBuffer out) {
+        Map<String, Object> data = event.getEventData();
+        out.putLong(sequence);
+        if (event instanceof CombatEvent) {
+            out.put(KIND_COMBAT);
+            out.putLong(event.getTimestamp());
+            putString(out, (String) data.get("attacker"));
+            putString(out, (String) data.get("target"));
+            out.putInt((Integer) data.get("damage"));
+            out.put((byte) (((Boolean) data.get("critical") ? FLAG_CRITICAL : 0)
+                    | ((Boolean) data.get("playerIsTarget") ? FLAG_PLAYER_TARGET : 0)));
+        } else if (event instanceof ItemEvent) {
+            out.put(KIND_ITEM);
+            out.putLong(event.getTimestamp());
+            putString(out, (String) data.get("action"));
+            putString(out, (String) data.get("playerName"));
+            putString(out, (String) data.get("itemName"));
+            putString(out, (String) data.get("rarity"));
+        } else if (event instanceof PlayerActionEvent) {
+            out.put(KIND_PLAYER_ACTION);
+            out.putLong(event.getTimestamp());
+            putString(out, (String) data.remove("action"));
+            putString(out, (String) data.remove("playerName"));
+            out.putInt(data.size());
+            for (Map.Entry<String, Object> param : data.entrySet()) {
+                putString(out, param.getKey());
+                putValue(out, param.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot journal event type: " + event.getClass().getName());
+        }
+    }
+
+    static GameEvent decode(ByteBuffer in) {
+        in.getLong();  // sequence, already read by the caller
+        byte kind = in.get();
+        long timestamp = in.getLong();
+        Map<String, Object> data = new HashMap<>();
+        switch (kind) {
+            case KIND_COMBAT:
+                data.put("attacker", getString(in));
+                data.put("target", getString(in));
+                data.put("damage", in.getInt());
+                byte flags = in.get();
+                data.put("critical", (flags & FLAG_CRITICAL) != 0);
+                data.put("playerIsTarget", (flags & FLAG_PLAYER_TARGET) != 0);
+                return new CombatEvent(timestamp, data);
+            case KIND_ITEM:
+                data.put("action", getString(in));
+                data.put("playerName", getString(in));
+                data.put("itemName", getString(in));
+                data.put("rarity", getString(in));
+                return new ItemEvent(timestamp, data);
+            case KIND_PLAYER_ACTION:
+                data.put("action", getString(in));
+                data.put("playerName", getString(in));
+                int params = in.getInt();
+                for (int i = 0; i < params; i++) {
+                    String key = getString(in);
+                    data.put(key, getValue(in));
+                }
+                return new PlayerActionEvent(timestamp, data);
+            default:
+                throw new IllegalStateException("Unknown event kind in journal: " + kind);
+        }
+    }
+
+    private static void putValue(ByteBuffer out, Object value) {
+        if (value instanceof Integer) {
+            out.put(TAG_INT).putInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.put(TAG_LONG).putLong((Long) value);
+        } else if (value instanceof Boolean) {
+            out.put(TAG_BOOLEAN).put((byte) ((Boolean) value ? 1 : 0));
+        } else if (value instanceof Double) {
+            out.put(TAG_DOUBLE).putDouble((Double) value);
+        } else {
+            out.put(TAG_STRING);
+            putString(out, String.valueOf(value));
+        }
+    }
+
+    private static Object getValue(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case TAG_INT: return in.getInt();
+            case TAG_LONG: return in.getLong();
+            case TAG_BOOLEAN: return in.get() != 0;
+            case TAG_DOUBLE: return in.getDouble();
+            case TAG_STRING: return getString(in);
+            default: throw new IllegalStateException("Unknown value tag in journal: " + tag);
+        }
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,7 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+// Receives every published event of one concrete class, see EventBus.registerHandler
+interface EventHandler<T extends GameEvent> {
+    void handle(T event);
+    Class<T> getEventType();
+}
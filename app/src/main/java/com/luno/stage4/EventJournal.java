@@ -0,0 +1,375 @@
+package com.luno.stage4;// Go to Java - Stage 4.4: Durable Event Journal
+// Coming from Go: Like a WAL built on os.File + bufio.Writer, with File.Sync() batched per group
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Segmented append-only journal. Each segment file is named after the first sequence
+// number it holds, so replaying from a sequence can skip every older segment unread.
+//
+// Record layout: bodyLength(4) crc32(4) body(bodyLength)
+//
+// Appends are buffered and fsync'd together once groupCommitSize events are pending
+// (group commit), or by a background flusher once a partial group has waited
+// maxCommitDelayMillis. A crash loses at most the last uncommitted group, and a quiet
+// journal never leaves events unwritten for longer than the delay.
+public class EventJournal implements Closeable {
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final long DEFAULT_MAX_COMMIT_DELAY_MILLIS = 10;
+    // Replay reads a whole segment into one heap buffer, so segments must stay well below 2 GiB.
+    // A segment rolls at the first commit past segmentBytes, which leaves room for the overshoot.
+    static final long MAX_SEGMENT_BYTES = 1L << 30;
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int groupCommitSize;
+    private final ScheduledExecutorService flusher;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(64 * 1024);
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer scratch = ByteBuffer.allocate(512);
+
+    private FileChannel active;
+    private long activeBytes;
+    private long nextSequence = 1;
+    private int uncommitted;
+    private boolean closed;
+
+    private EventJournal(Path directory, long segmentBytes, int groupCommitSize) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.groupCommitSize = groupCommitSize;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static EventJournal open(Path directory, long segmentBytes, int groupCommitSize) throws IOException {
+        return open(directory, segmentBytes, groupCommitSize, DEFAULT_MAX_COMMIT_DELAY_MILLIS);
+    }
+
+    public static EventJournal open(Path directory, long segmentBytes, int groupCommitSize,
+                                    long maxCommitDelayMillis) throws IOException {
+        if (segmentBytes <= HEADER_BYTES || groupCommitSize < 1 || maxCommitDelayMillis < 1) {
+            throw new IllegalArgumentException("Segment size, group commit size and commit delay must be positive");
+        }
+        if (segmentBytes > MAX_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Segment size must be at most " + MAX_SEGMENT_BYTES
+                    + " bytes: " + segmentBytes);
+        }
+        Files.createDirectories(directory);
+        EventJournal journal = new EventJournal(directory, segmentBytes, groupCommitSize);
+        try {
+            journal.recover();
+        } catch (IOException | RuntimeException e) {
+            journal.flusher.shutdownNow();
+            throw e;
+        }
+        journal.flusher.scheduleWithFixedDelay(journal::flushPending,
+                maxCommitDelayMillis, maxCommitDelayMillis, TimeUnit.MILLISECONDS);
+        return journal;
+    }
+
+    // Scans only the newest segment: drops a torn tail left by a crash and finds the next sequence
+    private synchronized void recover() throws IOException {
+        List<Path> segments = listSegments();
+        if (segments.isEmpty()) {
+            openSegment(nextSequence);
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        nextSequence = segmentStart(last);
+        active = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long validBytes = 0;
+        if (active.size() > 0) {
+            MappedByteBuffer mapped = active.map(FileChannel.MapMode.READ_ONLY, 0, active.size());
+            while (true) {
+                long sequence = nextValidRecord(mapped);
+                if (sequence < 0) {
+                    break;
+                }
+                nextSequence = sequence + 1;
+                validBytes = mapped.position();
+            }
+        }
+        active.truncate(validBytes);
+        active.position(validBytes);
+        activeBytes = validBytes;
+    }
+
+    // The sequence number is only used up once the record is buffered or written: if writing it
+    // fails, the next append reuses the number, so the journal has no gaps.
+    public synchronized long append(GameEvent event) {
+        long sequence = nextSequence;
+        ByteBuffer body = encode(sequence, event);
+        int recordBytes = HEADER_BYTES + body.remaining();
+        try {
+            if (writeBuffer.remaining() < recordBytes) {
+                writeBuffered();
+            }
+            crc.reset();
+            crc.update(body.array(), 0, body.remaining());
+            if (recordBytes > writeBuffer.capacity()) {
+                ByteBuffer large = ByteBuffer.allocate(recordBytes);
+                large.putInt(body.remaining()).putInt((int) crc.getValue()).put(body).flip();
+                writeLarge(large);
+            } else {
+                writeBuffer.putInt(body.remaining()).putInt((int) crc.getValue()).put(body);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append event " + sequence, e);
+        }
+        nextSequence++;
+        activeBytes += recordBytes;
+
+        if (++uncommitted >= groupCommitSize) {
+            try {
+                commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to commit journal up to event " + sequence, e);
+            }
+        }
+        return sequence;
+    }
+
+    private ByteBuffer encode(long sequence, GameEvent event) {
+        while (true) {
+            scratch.clear();
+            try {
+                EventCodec.encode(sequence, event, scratch);
+                scratch.flip();
+                return scratch;
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    // Writes everything buffered and fsyncs it; rolls to a new segment once the current one is full
+    public synchronized void commit() throws IOException {
+        writeBuffered();
+        if (uncommitted > 0) {
+            active.force(false);
+            uncommitted = 0;
+        }
+        if (activeBytes >= segmentBytes) {
+            active.close();
+            openSegment(nextSequence);
+        }
+    }
+
+    // Run by the flusher thread: commits a partial group that has waited the maximum delay
+    private synchronized void flushPending() {
+        if (uncommitted == 0 || !active.isOpen()) {
+            return;
+        }
+        try {
+            commit();
+        } catch (IOException e) {
+            System.err.println("Error committing event journal: " + e.getMessage());
+        }
+    }
+
+    // Replays every event with sequence >= fromSequence through the bus. Returns the last sequence replayed.
+    // Every record's CRC is checked: a damaged record in any segment fails the replay instead of being misread.
+    public synchronized long replay(long fromSequence, EventBus eventBus) throws IOException {
+        commit();
+        List<Path> segments = listSegments();
+        int first = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            if (segmentStart(segments.get(i)) <= fromSequence) {
+                first = i;  // newest segment that can still hold fromSequence
+            }
+        }
+
+        long lastReplayed = fromSequence - 1;
+        for (int i = first; i < segments.size(); i++) {
+            try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size == 0) {
+                    continue;
+                }
+                if (size > Integer.MAX_VALUE - HEADER_BYTES) {
+                    throw new IOException("Journal segment " + segments.get(i).getFileName()
+                            + " is too large to replay: " + size + " bytes");
+                }
+                // Heap copy so the codec can read strings straight out of the backing array
+                ByteBuffer segment = ByteBuffer.allocate((int) size);
+                while (segment.hasRemaining() && channel.read(segment) >= 0) {
+                    // keep reading
+                }
+                segment.flip();
+                while (segment.hasRemaining()) {
+                    int recordStart = segment.position();
+                    long sequence = nextValidRecord(segment);
+                    if (sequence < 0) {
+                        throw new IOException("Corrupt journal record in " + segments.get(i).getFileName()
+                                + " at byte " + recordStart);
+                    }
+                    if (sequence >= fromSequence) {
+                        int recordEnd = segment.position();
+                        segment.position(recordStart + HEADER_BYTES);
+                        eventBus.replayEvent(EventCodec.decode(segment));
+                        segment.position(recordEnd);
+                        lastReplayed = sequence;
+                    }
+                }
+            }
+        }
+        eventBus.finishReplay();
+        return lastReplayed;
+    }
+
+    // Deletes closed segments whose events all have sequence <= the given one (e.g. covered by a checkpoint)
+    public synchronized int deleteSegmentsCoveredBy(long sequence) throws IOException {
+        List<Path> segments = listSegments();
+        int deleted = 0;
+        // The newest segment is the active one and is never deleted
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (segmentStart(segments.get(i + 1)) - 1 > sequence) {
+                break;
+            }
+            Files.delete(segments.get(i));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    // Sequence number the next append will receive
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    // Safe to call more than once; only the first call commits and closes the segment
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flusher.shutdownNow();
+        try {
+            commit();
+        } finally {
+            active.close();
+        }
+    }
+
+    private void writeBuffered() throws IOException {
+        writeBuffer.flip();
+        try {
+            writeFully(writeBuffer);
+        } finally {
+            writeBuffer.compact();  // anything a failed write left behind stays queued
+        }
+    }
+
+    // Writes a record too big for the buffer straight to the segment. A failed write is cut
+    // off again, so later records never follow half a record.
+    private void writeLarge(ByteBuffer record) throws IOException {
+        long start = active.position();
+        try {
+            writeFully(record);
+        } catch (IOException e) {
+            try {
+                active.truncate(start);
+                active.position(start);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            throw e;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            active.write(buffer);
+        }
+    }
+
+    private void openSegment(long startSequence) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", startSequence, SEGMENT_SUFFIX));
+        active = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeBytes = 0;
+    }
+
+    // Returns the sequence of the next intact record and advances past it, or -1 at a torn or missing record
+    private long nextValidRecord(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES) {
+            return -1;
+        }
+        int start = buffer.position();
+        int bodyLength = buffer.getInt(start);
+        int expectedCrc = buffer.getInt(start + 4);
+        if (bodyLength < Long.BYTES || bodyLength > buffer.remaining() - HEADER_BYTES) {
+            return -1;
+        }
+        ByteBuffer body = buffer.duplicate();
+        body.position(start + HEADER_BYTES).limit(start + HEADER_BYTES + bodyLength);
+        crc.reset();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+            return -1;
+        }
+        buffer.position(start + HEADER_BYTES + bodyLength);
+        return body.getLong();
+    }
+
+    List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static long segmentStart(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("=== Durable Event Journal ===");
+        Path directory = Files.createTempDirectory("event-journal");
+
+        // First run: publish events with the journal attached
+        EventBus eventBus = new EventBus();
+        eventBus.registerHandler(new QuestHandler(eventBus));
+        try (EventJournal journal = EventJournal.open(directory, 4 * 1024, 32)) {
+            eventBus.attachJournal(journal);
+            for (int i = 0; i < 120; i++) {
+                String player = (i % 2 == 0) ? "Conan" : "Xena";
+                eventBus.publishEvent(new CombatEvent(player, "Goblin", 20, i % 5 == 0));
+                eventBus.publishEvent(new PlayerActionEvent("KILL_ENEMY", player, "enemyType", "Goblin"));
+            }
+            System.out.println("Journaled up to sequence " + (journal.getNextSequence() - 1)
+                    + " across " + journal.listSegments().size() + " segments");
+        }
+
+        // "Restart": a fresh bus rebuilds handler state from the journal
+        System.out.println("\n--- Replay after restart ---");
+        EventBus recovered = new EventBus();
+        CombatLogHandler combatLog = new CombatLogHandler();
+        recovered.registerHandler(combatLog);
+        try (EventJournal journal = EventJournal.open(directory, 4 * 1024, 32)) {
+            long last = journal.replay(200, recovered);
+            System.out.println("Replayed tail up to sequence " + last
+                    + ", combat entries rebuilt: " + combatLog.getCombatLog().size());
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.luno.stage4;// Go to Java - Stage 4.16: Deterministic Load Generation
+// Coming from Go: rand.New(rand.NewSource(seed)) feeding a load test paced by a fixed-rate ticker
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Produces a reproducible stream of game events from a seed. The same Workload always yields
+// the same events - same kinds, players, enemies, items and timestamps - so two benchmark runs
+// differ only in the code under test. Timestamps are logical (a fixed start plus the event's
+// slot at the target rate), not wall-clock.
+public final class EventLoadGenerator {
+    private static final long START_MILLIS = 1_700_000_000_000L;
+    private static final String[] ENEMIES = {"Goblin", "Orc", "Skeleton", "Dragon"};
+    private static final String[] ITEM_TYPES = {"Sword", "Shield", "Potion", "Bow"};
+    private static final String[] MOVES = {"north", "south", "east", "west"};
+
+    private final Workload workload;
+    private final SplittableRandom random;
+    private final AliasSampler kinds;    // 0 = combat, 1 = player action, 2 = item
+    private final AliasSampler rarities;
+    private final String[] players;
+    private long generated;
+
+    public EventLoadGenerator(Workload workload) {
+        this.workload = workload;
+        this.random = new SplittableRandom(workload.seed);
+        this.kinds = new AliasSampler(new double[] {workload.combatWeight, workload.actionWeight, workload.itemWeight});
+        this.rarities = new AliasSampler(new double[] {60, 25, 10, 5});
+        this.players = new String[workload.players];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = "Player" + i;
+        }
+    }
+
+    public GameEvent next() {
+        long timestamp = START_MILLIS + (workload.eventsPerSecond == 0
+                ? generated : generated * 1000 / workload.eventsPerSecond);
+        generated++;
+        String player = players[random.nextInt(players.length)];
+        Map<String, Object> data = new HashMap<>();
+
+        switch (kinds.sample(random)) {
+            case 0:
+                boolean critical = random.nextDouble() < workload.criticalChance;
+                int damage = 10 + random.nextInt(40);
+                data.put("attacker", player);
+                data.put("target", ENEMIES[random.nextInt(ENEMIES.length)]);
+                data.put("damage", critical ? damage * 2 : damage);
+                data.put("critical", critical);
+                return new CombatEvent(timestamp, data);
+            case 1:
+                data.put("playerName", player);
+                if (random.nextDouble() < workload.killShare) {
+                    data.put("action", "KILL_ENEMY");
+                    data.put("enemyType", ENEMIES[random.nextInt(ENEMIES.length)]);
+                } else {
+                    data.put("action", "MOVE");
+                    data.put("direction", MOVES[random.nextInt(MOVES.length)]);
+                }
+                return new PlayerActionEvent(timestamp, data);
+            default:
+                Rarity rarity = Rarity.byOrdinal(rarities.sample(random));
+                data.put("action", "FOUND");
+                data.put("playerName", player);
+                data.put("itemName", rarity.getDisplayName() + " " + ITEM_TYPES[random.nextInt(ITEM_TYPES.length)]);
+                data.put("rarity", rarity.getDisplayName());
+                return new ItemEvent(timestamp, data);
+        }
+    }
+
+    public List<GameEvent> generate(int count) {
+        List<GameEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(next());
+        }
+        return events;
+    }
+
+    // CRC of the journal encoding of every event: equal fingerprints mean identical streams
+    static long fingerprint(List<? extends GameEvent> events) {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        for (GameEvent event : events) {
+            buffer.clear();
+            EventCodec.encode(0, event, buffer);
+            buffer.flip();
+            crc.update(buffer);
+        }
+        return crc.getValue();
+    }
+
+    // What to generate. Weights are relative; eventsPerSecond = 0 means "as fast as possible".
+    public static final class Workload {
+        private final long seed;
+        private final int players;
+        private final double combatWeight;
+        private final double actionWeight;
+        private final double itemWeight;
+        private final double killShare;
+        private final double criticalChance;
+        private final int eventsPerSecond;
+
+        private Workload(Builder builder) {
+            this.seed = builder.seed;
+            this.players = builder.players;
+            this.combatWeight = builder.combatWeight;
+            this.actionWeight = builder.actionWeight;
+            this.itemWeight = builder.itemWeight;
+            this.killShare = builder.killShare;
+            this.criticalChance = builder.criticalChance;
+            this.eventsPerSecond = builder.eventsPerSecond;
+        }
+
+        public static Builder builder(long seed) {
+            return new Builder(seed);
+        }
+
+        public int getEventsPerSecond() {
+            return eventsPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("seed=%d players=%d mix=%.0f/%.0f/%.0f kills=%.0f%% crit=%.0f%% rate=%s",
+                    seed, players, combatWeight, actionWeight, itemWeight, killShare * 100, criticalChance * 100,
+                    eventsPerSecond == 0 ? "max" : eventsPerSecond + "/s");
+        }
+
+        public static final class Builder {
+            private final long seed;
+            private int players = 1000;
+            private double combatWeight = 70;
+            private double actionWeight = 25;
+            private double itemWeight = 5;
+            private double killShare = 0.5;
+            private double criticalChance = 0.2;
+            private int eventsPerSecond;
+
+            private Builder(long seed) {
+                this.seed = seed;
+            }
+
+            public Builder players(int players) {
+                if (players < 1) {
+                    throw new IllegalArgumentException("Need at least one player");
+                }
+                this.players = players;
+                return this;
+            }
+
+            // Relative weights of CombatEvent, PlayerActionEvent and ItemEvent
+            public Builder mix(double combat, double playerAction, double item) {
+                this.combatWeight = combat;
+                this.actionWeight = playerAction;
+                this.itemWeight = item;
+                return this;
+            }
+
+            // Fraction of player actions that are KILL_ENEMY (the rest are MOVE)
+            public Builder killShare(double killShare) {
+                this.killShare = probability(killShare);
+                return this;
+            }
+
+            public Builder criticalChance(double criticalChance) {
+                this.criticalChance = probability(criticalChance);
+                return this;
+            }
+
+            public Builder eventsPerSecond(int eventsPerSecond) {
+                if (eventsPerSecond < 0) {
+                    throw new IllegalArgumentException("Rate cannot be negative: " + eventsPerSecond);
+                }
+                this.eventsPerSecond = eventsPerSecond;
+                return this;
+            }
+
+            public Workload build() {
+                new AliasSampler(new double[] {combatWeight, actionWeight, itemWeight});  // validates the mix
+                return new Workload(this);
+            }
+
+            private static double probability(double value) {
+                if (value < 0 || value > 1) {
+                    throw new IllegalArgumentException("Expected a value between 0 and 1: " + value);
+                }
+                return value;
+            }
+        }
+    }
+
+    // Sustained throughput and publish latency of one benchmark run
+    static final class LoadResult {
+        final String mode;
+        final long events;
+        final long elapsedNanos;
+        final long p50Nanos;
+        final long p99Nanos;
+        final long p999Nanos;
+        final long maxNanos;
+
+        LoadResult(String mode, long events, long elapsedNanos, LatencyHistogram latency) {
+            this.mode = mode;
+            this.events = events;
+            this.elapsedNanos = elapsedNanos;
+            this.p50Nanos = latency.percentile(50);
+            this.p99Nanos = latency.percentile(99);
+            this.p999Nanos = latency.percentile(99.9);
+            this.maxNanos = latency.getMax();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-12s %,12.0f events/s  p50=%,dns p99=%,dns p99.9=%,dns max=%,dns",
+                    mode, events * 1e9 / elapsedNanos, p50Nanos, p99Nanos, p999Nanos, maxNanos);
+        }
+    }
+
+    // Publishes pre-generated events open-loop: event i is due at start + i / rate, whether or not
+    // earlier publishes were slow, and its latency is measured from when it was due. A stall
+    // therefore shows up in the latency of every event queued behind it rather than being hidden
+    // by a publisher that politely waited. With rate 0 events go back to back and latency is
+    // the cost of each publish call.
+    //
+    // For synchronous buses publish returns after every handler ran; for the sharded bus it
+    // returns once the event is queued, and drain waits for the shards to finish.
+    static LoadResult run(String mode, List<GameEvent> events, int eventsPerSecond,
+                          Consumer<GameEvent> publish, Runnable drain) {
+        LatencyHistogram latency = new LatencyHistogram();
+        long periodNanos = eventsPerSecond == 0 ? 0 : 1_000_000_000L / eventsPerSecond;
+        long start = System.nanoTime();
+        for (int i = 0; i < events.size(); i++) {
+            long due = start + i * periodNanos;
+            long now = System.nanoTime();
+            while (now < due) {
+                if (due - now > 50_000) {
+                    LockSupport.parkNanos(due - now - 20_000);
+                } else {
+                    Thread.onSpinWait();
+                }
+                now = System.nanoTime();
+            }
+            publish.accept(events.get(i));
+            latency.record(System.nanoTime() - (periodNanos == 0 ? now : due));
+        }
+        drain.run();
+        return new LoadResult(mode, events.size(), System.nanoTime() - start, latency);
+    }
+
+    private static LoadResult runPlain(List<GameEvent> events, int eventsPerSecond, boolean coalesce) {
+        EventBus eventBus = new EventBus();
+        QuestHandler quests = new QuestHandler(Integer.MAX_VALUE);  // count only, no rewards
+        if (coalesce) {
+            eventBus.registerCoalescingHandler(quests, 10);
+        } else {
+            eventBus.registerHandler(quests);
+        }
+        eventBus.registerHandler(new GameServerLoop.CountingHandler<>(CombatEvent.class));
+        eventBus.registerHandler(new GameServerLoop.CountingHandler<>(ItemEvent.class));
+        int[] published = new int[1];
+        return run(coalesce ? "coalescing" : "plain", events, eventsPerSecond, event -> {
+            eventBus.publishEvent(event);
+            if ((++published[0] & 0xFFFF) == 0) {
+                eventBus.clearHistory();
+            }
+        }, eventBus::flushCoalesced);
+    }
+
+    private static LoadResult runSharded(List<GameEvent> events, int eventsPerSecond, int shardCount) {
+        ShardedEventBus bus = new ShardedEventBus(shardCount, ShardedEventBus::playerKey);
+        bus.registerShardHandler(shardBus -> new QuestHandler(shardBus, Integer.MAX_VALUE));
+        bus.registerShardHandler(shardBus -> new GameServerLoop.CountingHandler<>(CombatEvent.class));
+        bus.registerShardHandler(shardBus -> new GameServerLoop.CountingHandler<>(ItemEvent.class));
+        bus.start();
+        try {
+            return run("sharded x" + shardCount, events, eventsPerSecond, bus::publishEvent, bus::close);
+        } finally {
+            bus.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== Deterministic Load Generation ===");
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 42;
+        int eventCount = 1_000_000;
+
+        List<GameEvent> first = new EventLoadGenerator(Workload.builder(seed).build()).generate(eventCount);
+        List<GameEvent> second = new EventLoadGenerator(Workload.builder(seed).build()).generate(eventCount);
+        System.out.printf("Seed %d: stream fingerprint %08x, regenerated %08x%n",
+                seed, fingerprint(first), fingerprint(second));
+
+        for (int rate : new int[] {0, 500_000}) {
+            Workload workload = Workload.builder(seed).eventsPerSecond(rate).build();
+            List<GameEvent> events = new EventLoadGenerator(workload).generate(eventCount);
+            System.out.println("\n" + workload);
+            // Warm-up pass so every mode is measured with compiled code
+            runPlain(events.subList(0, 200_000), 0, false);
+            runPlain(events.subList(0, 200_000), 0, true);
+            runSharded(events.subList(0, 200_000), 0, 4);
+
+            System.out.println(runPlain(events, rate, false));
+            System.out.println(runPlain(events, rate, true));
+            System.out.println(runSharded(events, rate, 4));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+// Context class using Strategy pattern
+class GameCharacter {
+    private String name;
+    private int level;
+    private int baseDamage;
+    private CombatStrategy strategy;
+    private StrategyKind strategyKind;  // cached strategy.kind()
+    private GameEventManager eventManager;
+
+    public GameCharacter(String name, GameEventManager eventManager) {
+        this.name = name;
+        this.level = 1;
+        this.baseDamage = 10;
+        this.strategy = new BalancedStrategy();  // default
+        this.strategyKind = strategy.kind();
+        this.eventManager = eventManager;
+    }
+
+    // Quietly creates a character at a given level, e.g. for filling a simulated army
+    public GameCharacter(String name, int level, CombatStrategy strategy, GameEventManager eventManager) {
+        this.name = name;
+        this.level = level;
+        this.baseDamage = 10;
+        this.strategy = strategy;
+        this.strategyKind = strategy.kind();
+        this.eventManager = eventManager;
+    }
+
+    public void setStrategy(CombatStrategy strategy) {
+        this.strategy = strategy;
+        this.strategyKind = strategy.kind();
+        System.out.println(name + " switched to " + strategy.getStrategyName() + " combat style");
+    }
+
+    public void levelUp() {
+        level++;
+        eventManager.notifyPlayerLevelUp(name, level);
+    }
+
+    public void die() {
+        eventManager.notifyPlayerDied(name);
+    }
+
+    public void findItem(String itemName) {
+        eventManager.notifyItemFound(name, itemName);
+    }
+
+    // Built-in strategies resolve through the switch to static methods the JIT inlines, so this
+    // site stays cheap however many strategies are in play; custom ones use the interface
+    int computeDamage() {
+        switch (strategyKind) {
+            case AGGRESSIVE: return AggressiveStrategy.damage(baseDamage, level);
+            case DEFENSIVE: return DefensiveStrategy.damage(baseDamage, level);
+            case BALANCED: return BalancedStrategy.damage(baseDamage, level);
+            default: return strategy.calculateDamage(baseDamage, level);
+        }
+    }
+
+    public int attack() {
+        int damage = computeDamage();
+        System.out.println(name + " attacks for " + damage + " damage using " +
+                strategy.getStrategyName() + " strategy");
+        return damage;
+    }
+
+    // Getters
+    public String getName() { return name; }
+    public int getLevel() { return level; }
+    public int getBaseDamage() { return baseDamage; }
+    public CombatStrategy getStrategy() { return strategy; }
+}
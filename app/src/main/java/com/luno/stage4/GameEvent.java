@@ -0,0 +1,13 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+import java.util.*;
+
+// Every event the EventBus carries
+interface GameEvent {
+    String getEventType();
+    long getTimestamp();
+    Map<String, Object> getEventData();
+
+    // Hierarchical routing topic such as "ITEM.FOUND.Legendary"; see TopicRouter
+    default String getTopic() { return getEventType(); }
+}
@@ -0,0 +1,8 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+// Observer Pattern - similar to Go channels but object-oriented
+interface GameEventListener {
+    void onPlayerLevelUp(String playerName, int newLevel);
+    void onPlayerDied(String playerName);
+    void onItemFound(String playerName, String itemName);
+}
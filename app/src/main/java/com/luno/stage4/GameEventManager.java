@@ -0,0 +1,95 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Predicate;
+
+// Copy-on-write listener registry: add/remove compile a new set of dispatch tables and swap
+// it in with a CAS, so notifying is a plain loop over whatever tables were current when it
+// started - no lock, no iterator, and a listener may add or remove listeners (itself
+// included) mid-notification. Each notification only visits listeners whose
+// ListenerInterest covers it. Suited to listeners that change rarely and are notified
+// often, from any number of threads.
+class GameEventManager {
+    private static final AtomicReferenceFieldUpdater<GameEventManager, ListenerInterest.Dispatch> DISPATCH =
+            AtomicReferenceFieldUpdater.newUpdater(GameEventManager.class, ListenerInterest.Dispatch.class, "dispatch");
+
+    private volatile ListenerInterest.Dispatch dispatch = ListenerInterest.Dispatch.EMPTY;
+
+    // Receives every event
+    public void addListener(GameEventListener listener) {
+        addListener(listener, ListenerInterest.ALL);
+    }
+
+    public void addListener(GameEventListener listener, ListenerInterest interest) {
+        Objects.requireNonNull(listener, "listener");
+        Objects.requireNonNull(interest, "interest");
+        ListenerInterest.Dispatch current;
+        ListenerInterest.Dispatch updated;
+        do {
+            current = dispatch;
+            GameEventListener[] listeners = Arrays.copyOf(current.listeners, current.listeners.length + 1);
+            ListenerInterest[] interests = Arrays.copyOf(current.interests, current.interests.length + 1);
+            listeners[current.listeners.length] = listener;
+            interests[current.interests.length] = interest;
+            updated = new ListenerInterest.Dispatch(listeners, interests);
+        } while (!DISPATCH.compareAndSet(this, current, updated));
+    }
+
+    // Removes the first registration of the listener; false if it was not registered
+    public boolean removeListener(GameEventListener listener) {
+        ListenerInterest.Dispatch current;
+        ListenerInterest.Dispatch updated;
+        do {
+            current = dispatch;
+            int index = indexOf(current.listeners, listener);
+            if (index < 0) {
+                return false;
+            }
+            updated = new ListenerInterest.Dispatch(without(current.listeners, index), without(current.interests, index));
+        } while (!DISPATCH.compareAndSet(this, current, updated));
+        return true;
+    }
+
+    public int getListenerCount() {
+        return dispatch.listeners.length;
+    }
+
+    public void notifyPlayerLevelUp(String playerName, int newLevel) {
+        for (GameEventListener listener : dispatch.levelUps(newLevel)) {
+            listener.onPlayerLevelUp(playerName, newLevel);
+        }
+    }
+
+    public void notifyPlayerDied(String playerName) {
+        for (GameEventListener listener : dispatch.deaths) {
+            listener.onPlayerDied(playerName);
+        }
+    }
+
+    public void notifyItemFound(String playerName, String itemName) {
+        ListenerInterest.Dispatch current = dispatch;
+        GameEventListener[] listeners = current.items;
+        Predicate<String>[] filters = current.itemFilters;
+        for (int i = 0; i < listeners.length; i++) {
+            if (filters[i] == null || filters[i].test(itemName)) {
+                listeners[i].onItemFound(playerName, itemName);
+            }
+        }
+    }
+
+    private static int indexOf(GameEventListener[] array, GameEventListener listener) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i].equals(listener)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static <E> E[] without(E[] array, int index) {
+        E[] result = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+import java.util.*;
+
+// Immutable game item (encapsulation)
+// Stats live in an int[] indexed by StatId slot plus a bit mask of which stats are present,
+// instead of a per-item HashMap of boxed Integers.
+final class GameItem {
+    private final String name;
+    private final String rarity;
+    private final int value;
+    private final long statMask;
+    private final int[] statValues;
+
+    public GameItem(String name, String rarity, int value, Map<String, Integer> stats) {
+        this.name = name;
+        this.rarity = rarity;
+        this.value = value;
+
+        int slots = 0;
+        long mask = 0;
+        for (String stat : stats.keySet()) {
+            int slot = StatId.of(stat).getSlot();
+            mask |= 1L << slot;
+            slots = Math.max(slots, slot + 1);
+        }
+        int[] values = new int[slots];
+        for (Map.Entry<String, Integer> entry : stats.entrySet()) {
+            values[StatId.of(entry.getKey()).getSlot()] = entry.getValue();
+        }
+        this.statMask = mask;
+        this.statValues = values;
+    }
+
+    public String getName() { return name; }
+    public String getRarity() { return rarity; }
+    public int getValue() { return value; }
+
+    public boolean hasStat(StatId stat) {
+        return (statMask & (1L << stat.getSlot())) != 0;
+    }
+
+    // 0 when the item does not have the stat
+    public int getStat(StatId stat) {
+        return hasStat(stat) ? statValues[stat.getSlot()] : 0;
+    }
+
+    // Read-only view keyed by stat name over the packed stats; nothing is copied
+    public Map<String, Integer> getStats() {
+        return new StatsView();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s) - Value: %d, Stats: %s", name, rarity, value, getStats());
+    }
+
+    // Iterates the present stats in slot order; lookups by name walk at most MAX_STATS entries
+    private final class StatsView extends AbstractMap<String, Integer> {
+        @Override
+        public int size() {
+            return Long.bitCount(statMask);
+        }
+
+        @Override
+        public Set<Entry<String, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return Long.bitCount(statMask);
+                }
+
+                @Override
+                public Iterator<Entry<String, Integer>> iterator() {
+                    return new Iterator<>() {
+                        private long remaining = statMask;
+
+                        @Override
+                        public boolean hasNext() {
+                            return remaining != 0;
+                        }
+
+                        @Override
+                        public Entry<String, Integer> next() {
+                            if (remaining == 0) {
+                                throw new NoSuchElementException();
+                            }
+                            int slot = Long.numberOfTrailingZeros(remaining);
+                            remaining &= remaining - 1;
+                            return new SimpleImmutableEntry<>(StatId.bySlot(slot).getName(), statValues[slot]);
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Main game player class
+// Health and level are packed into one long (level in the high 32 bits, health in the low 32)
+// and updated with compare-and-set, so attacks from several threads never lose damage and
+// the death transition is observed by exactly one of them.
+class GamePlayer {
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(GamePlayer.class, "state", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String name;
+    private final EventBus eventBus;
+    @SuppressWarnings("unused")  // accessed through STATE
+    private volatile long state = pack(1, 100);
+
+    public GamePlayer(String name, EventBus eventBus) {
+        this.name = name;
+        this.eventBus = eventBus;
+    }
+
+    public void attackEnemy(String enemyType) {
+        List<GameEvent> events = new ArrayList<>(3);
+        planAttack(enemyType, events);
+        eventBus.publishBatch(events);
+    }
+
+    // Rolls an attack and adds the resulting events to out without publishing them,
+    // so a tick loop can plan many players in parallel and publish once per tick
+    void planAttack(String enemyType, List<GameEvent> out) {
+        int damage = ThreadLocalRandom.current().nextInt(15, 31);
+        boolean critical = ThreadLocalRandom.current().nextDouble() < 0.2;
+        if (critical) damage *= 2;
+
+        out.add(new CombatEvent(name, enemyType, damage, critical));
+        out.add(new PlayerActionEvent("KILL_ENEMY", name, "enemyType", enemyType));
+
+        // Chance to find loot
+        if (ThreadLocalRandom.current().nextDouble() < 0.3) {
+            GameItem loot = ItemFactory.createRandomItem(enemyType);
+            out.add(new ItemEvent("FOUND", name, loot.getName(), loot.getRarity()));
+        }
+    }
+
+    public void takeDamage(int damage) {
+        boolean died = applyDamage(damage);
+        System.out.println(name + " takes " + damage + " damage. Health: " + getHealth());
+        if (died) {
+            System.out.println("💀 " + name + " has died!");
+        }
+    }
+
+    // Lock-free damage for concurrent combat. Returns true only for the hit that kills the
+    // player; a dead player takes no further damage.
+    public boolean applyDamage(int damage) {
+        long current = (long) STATE.getVolatile(this);
+        while (true) {
+            int health = health(current);
+            if (health <= 0) {
+                return false;
+            }
+            long updated = pack(level(current), health - damage);
+            long witness = (long) STATE.compareAndExchange(this, current, updated);
+            if (witness == current) {
+                return health - damage <= 0;
+            }
+            current = witness;
+        }
+    }
+
+    public int levelUp() {
+        long current = (long) STATE.getVolatile(this);
+        while (true) {
+            long updated = pack(level(current) + 1, health(current));
+            long witness = (long) STATE.compareAndExchange(this, current, updated);
+            if (witness == current) {
+                return level(updated);
+            }
+            current = witness;
+        }
+    }
+
+    public String getName() { return name; }
+    public int getHealth() { return health((long) STATE.getVolatile(this)); }
+    public int getLevel() { return level((long) STATE.getVolatile(this)); }
+    public boolean isAlive() { return getHealth() > 0; }
+
+    private static long pack(int level, int health) {
+        return ((long) level << 32) | (health & 0xFFFFFFFFL);
+    }
+
+    private static int level(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static int health(long state) {
+        return (int) state;
+    }
+}
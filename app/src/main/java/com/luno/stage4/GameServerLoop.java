@@ -0,0 +1,222 @@
+package com.luno.stage4;// Go to Java - Stage 4.12: Fixed-Rate Server Tick Loop
+// Coming from Go: time.Ticker driving a sync.WaitGroup of worker goroutines each tick
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs the game at a fixed tick rate. Each tick:
+// 1. players are split into chunks and planned in parallel on a worker pool, each chunk
+//    collecting its events into its own reusable buffer
+// 2. the tick thread publishes the buffers through the EventBus in chunk order - the bus
+//    itself stays single-threaded
+// 3. coalescing handlers are flushed, so they see each tick's merged events within the tick
+// 4. tick duration is recorded, and a tick that takes longer than the period is an overrun
+public class GameServerLoop implements AutoCloseable {
+    private static final String[] ENEMIES = {"Goblin", "Orc", "Skeleton", "Dragon"};
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final EventBus eventBus;
+    private final List<GamePlayer> players;
+    private final double actionChance;
+    private final long periodNanos;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService ticker;
+    private final PlanChunk[] chunks;
+
+    // Written by the tick thread, read by anyone asking for metrics
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+    private final AtomicLong eventsPublished = new AtomicLong();
+    private volatile long lastTickNanos;
+    private volatile long maxTickNanos;
+    private volatile long totalTickNanos;
+
+    public GameServerLoop(EventBus eventBus, List<GamePlayer> players, int tickRateHz, int workerCount,
+                          double actionChance) {
+        if (tickRateHz < 1 || workerCount < 1) {
+            throw new IllegalArgumentException("Tick rate and worker count must be positive");
+        }
+        this.eventBus = eventBus;
+        this.players = new ArrayList<>(players);
+        this.actionChance = actionChance;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / tickRateHz;
+        this.workers = Executors.newFixedThreadPool(workerCount, daemonThreads("tick-worker"));
+        this.ticker = Executors.newSingleThreadScheduledExecutor(daemonThreads("tick-loop"));
+
+        int chunkCount = Math.max(1, Math.min(this.players.size(), workerCount * CHUNKS_PER_WORKER));
+        this.chunks = new PlanChunk[chunkCount];
+        int chunkSize = (this.players.size() + chunkCount - 1) / chunkCount;
+        for (int i = 0; i < chunkCount; i++) {
+            int from = Math.min(i * chunkSize, this.players.size());
+            chunks[i] = new PlanChunk(from, Math.min(from + chunkSize, this.players.size()));
+        }
+    }
+
+    public void start() {
+        ticker.scheduleAtFixedRate(this::tick, 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Runs one tick on the calling thread; start() calls this at the fixed rate
+    void tick() {
+        long start = System.nanoTime();
+        try {
+            CountDownLatch planned = new CountDownLatch(chunks.length);
+            for (PlanChunk chunk : chunks) {
+                chunk.done = planned;
+                workers.execute(chunk);
+            }
+            planned.await();
+
+            int published = 0;
+            try {
+                for (PlanChunk chunk : chunks) {
+                    eventBus.publishBatch(chunk.events);
+                    published += chunk.events.size();
+                }
+            } finally {
+                // A failed publish must not leave this tick's events to be published again next tick
+                for (PlanChunk chunk : chunks) {
+                    chunk.events.clear();
+                }
+            }
+            // Coalescing handlers get one merged delivery per key per tick
+            eventBus.flushCoalesced();
+            // Per-tick events have been handled; the tick loop does not keep history around
+            eventBus.clearHistory();
+            eventsPublished.addAndGet(published);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException e) {
+            // An exception escaping would silently cancel the scheduled loop
+            System.err.println("Tick failed: " + e.getMessage());
+        }
+
+        long duration = System.nanoTime() - start;
+        lastTickNanos = duration;
+        totalTickNanos += duration;
+        if (duration > maxTickNanos) {
+            maxTickNanos = duration;
+        }
+        if (duration > periodNanos) {
+            overruns.incrementAndGet();
+        }
+        ticks.incrementAndGet();
+    }
+
+    public TickMetrics getMetrics() {
+        long tickCount = ticks.get();
+        return new TickMetrics(tickCount, overruns.get(), eventsPublished.get(),
+                lastTickNanos, maxTickNanos, tickCount == 0 ? 0 : totalTickNanos / tickCount, periodNanos);
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdown();
+        try {
+            ticker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Plans one slice of the player list; its events buffer is reused every tick
+    private final class PlanChunk implements Runnable {
+        private final int from;
+        private final int to;
+        private final List<GameEvent> events = new ArrayList<>();
+        private volatile CountDownLatch done;
+
+        PlanChunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void run() {
+            try {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = from; i < to; i++) {
+                    if (random.nextDouble() < actionChance) {
+                        players.get(i).planAttack(ENEMIES[random.nextInt(ENEMIES.length)], events);
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    static final class TickMetrics {
+        final long ticks;
+        final long overruns;
+        final long eventsPublished;
+        final long lastTickNanos;
+        final long maxTickNanos;
+        final long meanTickNanos;
+        final long periodNanos;
+
+        TickMetrics(long ticks, long overruns, long eventsPublished, long lastTickNanos,
+                    long maxTickNanos, long meanTickNanos, long periodNanos) {
+            this.ticks = ticks;
+            this.overruns = overruns;
+            this.eventsPublished = eventsPublished;
+            this.lastTickNanos = lastTickNanos;
+            this.maxTickNanos = maxTickNanos;
+            this.meanTickNanos = meanTickNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ticks=%d overruns=%d events=%d mean=%.2fms max=%.2fms budget=%.2fms",
+                    ticks, overruns, eventsPublished, meanTickNanos / 1e6, maxTickNanos / 1e6, periodNanos / 1e6);
+        }
+    }
+
+    // Counts events without printing, so the demo measures the loop rather than the console
+    static final class CountingHandler<T extends GameEvent> implements EventHandler<T> {
+        private final Class<T> eventType;
+        long count;
+
+        CountingHandler(Class<T> eventType) { this.eventType = eventType; }
+
+        @Override
+        public void handle(T event) { count++; }
+
+        @Override
+        public Class<T> getEventType() { return eventType; }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== Fixed-Rate Server Tick Loop ===");
+        int workers = Runtime.getRuntime().availableProcessors();
+
+        for (int playerCount : new int[] {1_000, 10_000, 50_000}) {
+            EventBus eventBus = new EventBus();
+            eventBus.registerHandler(new CountingHandler<>(CombatEvent.class));
+            eventBus.registerHandler(new QuestHandler(10));  // progress only, no reward items
+            List<GamePlayer> players = new ArrayList<>(playerCount);
+            for (int i = 0; i < playerCount; i++) {
+                players.add(new GamePlayer("Player" + i, eventBus));
+            }
+
+            try (GameServerLoop loop = new GameServerLoop(eventBus, players, 20, workers, 0.1)) {
+                loop.start();
+                Thread.sleep(3_000);
+                System.out.println(playerCount + " players @ 20Hz: " + loop.getMetrics());
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+import java.util.*;
+
+// An item a player found (or otherwise acted on), with its rarity
+class ItemEvent implements GameEvent {
+    private final String eventType;
+    private final long timestamp;
+    private final Map<String, Object> eventData;
+    private String topic;  // built on first use
+
+    public ItemEvent(String action, String playerName, String itemName, String rarity) {
+        this.eventType = "ITEM";
+        this.timestamp = System.currentTimeMillis();
+        this.eventData = new HashMap<>();
+        this.eventData.put("action", action);
+        this.eventData.put("playerName", playerName);
+        this.eventData.put("itemName", itemName);
+        this.eventData.put("rarity", rarity);
+    }
+
+    // Restores an event read back from the EventJournal, keeping its original timestamp
+    ItemEvent(long timestamp, Map<String, Object> eventData) {
+        this.eventType = "ITEM";
+        this.timestamp = timestamp;
+        this.eventData = new HashMap<>(eventData);
+    }
+
+    @Override
+    public String getEventType() { return eventType; }
+
+    @Override
+    public long getTimestamp() { return timestamp; }
+
+    @Override
+    public Map<String, Object> getEventData() { return new HashMap<>(eventData); }
+
+    @Override
+    public String getTopic() {
+        if (topic == null) {
+            topic = eventType + "." + eventData.get("action") + "." + eventData.get("rarity");
+        }
+        return topic;
+    }
+
+    // Direct accessors for hot handlers - no defensive copy of the data map
+    public String getAction() { return (String) eventData.get("action"); }
+    public String getPlayerName() { return (String) eventData.get("playerName"); }
+    public String getItemName() { return (String) eventData.get("itemName"); }
+    public String getRarity() { return (String) eventData.get("rarity"); }
+}
@@ -0,0 +1,94 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Factory for creating game items.
+// GameItem is immutable, so every (type, rarity) pair is built once up front and then shared:
+// handing out an item is an array lookup instead of scaling stats into a fresh map.
+class ItemFactory {
+    private static final Map<String, Map<String, Integer>> ITEM_TEMPLATES = new LinkedHashMap<>();
+    private static final Map<String, Integer> TYPE_INDEX = new HashMap<>();
+    private static final GameItem[][] PROTOTYPES;  // [type index][rarity ordinal]
+    private static final Map<String, LootTable> ENEMY_LOOT = new ConcurrentHashMap<>();
+    private static final LootTable DEFAULT_LOOT;
+
+    static {
+        ITEM_TEMPLATES.put("Sword", Map.of("attack", 10, "durability", 100));
+        ITEM_TEMPLATES.put("Shield", Map.of("defense", 8, "durability", 120));
+        ITEM_TEMPLATES.put("Potion", Map.of("healing", 50));
+        ITEM_TEMPLATES.put("Bow", Map.of("attack", 8, "range", 15, "durability", 80));
+
+        PROTOTYPES = new GameItem[ITEM_TEMPLATES.size()][Rarity.count()];
+        int typeIndex = 0;
+        for (Map.Entry<String, Map<String, Integer>> template : ITEM_TEMPLATES.entrySet()) {
+            TYPE_INDEX.put(template.getKey(), typeIndex);
+            for (int r = 0; r < Rarity.count(); r++) {
+                Rarity rarity = Rarity.byOrdinal(r);
+                PROTOTYPES[typeIndex][r] = scale(template.getKey(), template.getValue(),
+                        rarity.getDisplayName(), rarity.getMultiplier());
+            }
+            typeIndex++;
+        }
+
+        // Drop weights per rarity: Common, Rare, Epic, Legendary
+        DEFAULT_LOOT = rarityWeighted(60, 25, 10, 5);
+        ENEMY_LOOT.put("Dragon", rarityWeighted(10, 30, 35, 25));
+    }
+
+    public static GameItem createItem(String itemType, String rarity) {
+        Integer typeIndex = TYPE_INDEX.get(itemType);
+        if (typeIndex == null) {
+            throw new IllegalArgumentException("Unknown item type: " + itemType);
+        }
+        Rarity standard = Rarity.fromName(rarity);
+        if (standard == null) {
+            // Non-standard rarity names keep the old behaviour: base stats, custom label
+            return scale(itemType, ITEM_TEMPLATES.get(itemType), rarity, 1);
+        }
+        return PROTOTYPES[typeIndex][standard.ordinal()];
+    }
+
+    static boolean isKnownType(String itemType) {
+        return TYPE_INDEX.containsKey(itemType);
+    }
+
+    public static GameItem createItem(String itemType, Rarity rarity) {
+        return createItem(itemType, rarity.getDisplayName());
+    }
+
+    // Weighted drop from the default loot table
+    public static GameItem createRandomItem() {
+        return DEFAULT_LOOT.roll();
+    }
+
+    // Weighted drop from the enemy's loot table, falling back to the default table
+    public static GameItem createRandomItem(String enemyType) {
+        LootTable table = ENEMY_LOOT.get(enemyType);
+        return (table != null ? table : DEFAULT_LOOT).roll();
+    }
+
+    public static void registerLootTable(String enemyType, LootTable table) {
+        ENEMY_LOOT.put(enemyType, table);
+    }
+
+    // Every item type at every rarity, weighted by rarity and split evenly across types
+    private static LootTable rarityWeighted(double... rarityWeights) {
+        LootTable.Builder builder = LootTable.builder();
+        for (GameItem[] byRarity : PROTOTYPES) {
+            for (int r = 0; r < byRarity.length; r++) {
+                builder.add(byRarity[r], rarityWeights[r]);
+            }
+        }
+        return builder.build();
+    }
+
+    private static GameItem scale(String itemType, Map<String, Integer> baseStats, String rarity, int rarityMultiplier) {
+        Map<String, Integer> scaledStats = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : baseStats.entrySet()) {
+            scaledStats.put(entry.getKey(), entry.getValue() * rarityMultiplier);
+        }
+        int value = 100 * rarityMultiplier;
+        return new GameItem(rarity + " " + itemType, rarity, value, scaledStats);
+    }
+}
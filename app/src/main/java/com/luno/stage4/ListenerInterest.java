@@ -0,0 +1,164 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+import java.util.*;
+import java.util.function.Predicate;
+
+// What a listener wants to hear about, declared when it is registered. The manager uses it
+// to skip listeners up front instead of calling every listener for every event.
+final class ListenerInterest {
+    static final ListenerInterest ALL = new ListenerInterest(true, null, true, true, null);
+
+    private final boolean levelUps;
+    private final int[] levels;                   // null = every level
+    private final boolean deaths;
+    private final boolean items;
+    private final Predicate<String> itemFilter;   // null = every item
+
+    private ListenerInterest(boolean levelUps, int[] levels, boolean deaths, boolean items, Predicate<String> itemFilter) {
+        this.levelUps = levelUps;
+        this.levels = levels;
+        this.deaths = deaths;
+        this.items = items;
+        this.itemFilter = itemFilter;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    boolean wantsLevel(int level) {
+        if (!levelUps) {
+            return false;
+        }
+        if (levels == null) {
+            return true;
+        }
+        for (int wanted : levels) {
+            if (wanted == level) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static final class Builder {
+        private boolean levelUps;
+        private int[] levels;
+        private boolean deaths;
+        private boolean items;
+        private Predicate<String> itemFilter;
+
+        Builder levelUps() {
+            levelUps = true;
+            levels = null;
+            return this;
+        }
+
+        // Only level-ups reaching one of these levels
+        Builder levelUps(int... thresholds) {
+            if (thresholds.length == 0) {
+                throw new IllegalArgumentException("At least one level is required; use levelUps() for every level");
+            }
+            for (int level : thresholds) {
+                if (level < 1) {
+                    throw new IllegalArgumentException("Level must be positive: " + level);
+                }
+            }
+            levelUps = true;
+            levels = thresholds.clone();
+            return this;
+        }
+
+        Builder deaths() {
+            deaths = true;
+            return this;
+        }
+
+        Builder items() {
+            items = true;
+            itemFilter = null;
+            return this;
+        }
+
+        // Only items whose name passes the filter
+        Builder items(Predicate<String> filter) {
+            items = true;
+            itemFilter = Objects.requireNonNull(filter, "filter");
+            return this;
+        }
+
+        ListenerInterest build() {
+            return new ListenerInterest(levelUps, levels, deaths, items, itemFilter);
+        }
+    }
+
+    // Immutable dispatch tables compiled from every registration, in registration order.
+    // Level-ups are pre-split for each level someone asked for by number - a sorted array of
+    // those levels with the listener lists parallel to it, so the size follows the number of
+    // declared levels, not their values. Any other level uses the listeners that want every level.
+    static final class Dispatch {
+        static final Dispatch EMPTY = new Dispatch(new GameEventListener[0], new ListenerInterest[0]);
+
+        final GameEventListener[] listeners;
+        final ListenerInterest[] interests;
+        final int[] declaredLevels;                  // sorted, distinct
+        final GameEventListener[][] levelUpsByLevel;  // parallel to declaredLevels
+        final GameEventListener[] levelUpsOther;
+        final GameEventListener[] deaths;
+        final GameEventListener[] items;
+        final Predicate<String>[] itemFilters;   // parallel to items, null = no filter
+
+        @SuppressWarnings("unchecked")
+        Dispatch(GameEventListener[] listeners, ListenerInterest[] interests) {
+            this.listeners = listeners;
+            this.interests = interests;
+
+            SortedSet<Integer> declared = new TreeSet<>();
+            List<GameEventListener> everyLevel = new ArrayList<>();
+            List<GameEventListener> deathListeners = new ArrayList<>();
+            List<GameEventListener> itemListeners = new ArrayList<>();
+            List<Predicate<String>> filters = new ArrayList<>();
+            for (int i = 0; i < listeners.length; i++) {
+                ListenerInterest interest = interests[i];
+                if (interest.levelUps && interest.levels == null) {
+                    everyLevel.add(listeners[i]);
+                } else if (interest.levelUps) {
+                    for (int level : interest.levels) {
+                        declared.add(level);
+                    }
+                }
+                if (interest.deaths) {
+                    deathListeners.add(listeners[i]);
+                }
+                if (interest.items) {
+                    itemListeners.add(listeners[i]);
+                    filters.add(interest.itemFilter);
+                }
+            }
+
+            this.declaredLevels = new int[declared.size()];
+            this.levelUpsByLevel = new GameEventListener[declared.size()][];
+            int index = 0;
+            for (int level : declared) {
+                List<GameEventListener> wanted = new ArrayList<>();
+                for (int i = 0; i < listeners.length; i++) {
+                    if (interests[i].wantsLevel(level)) {
+                        wanted.add(listeners[i]);
+                    }
+                }
+                declaredLevels[index] = level;
+                levelUpsByLevel[index] = wanted.toArray(new GameEventListener[0]);
+                index++;
+            }
+            this.levelUpsOther = everyLevel.toArray(new GameEventListener[0]);
+            this.deaths = deathListeners.toArray(new GameEventListener[0]);
+            this.items = itemListeners.toArray(new GameEventListener[0]);
+            this.itemFilters = (Predicate<String>[]) filters.toArray(new Predicate<?>[0]);
+        }
+
+        GameEventListener[] levelUps(int level) {
+            int index = Arrays.binarySearch(declaredLevels, level);
+            return index >= 0 ? levelUpsByLevel[index] : levelUpsOther;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.luno.stage4;// Go to Java - Stage 4.10: Weighted Loot Tables
+// Coming from Go: Same idea as a weighted pick over a slice, but precomputed so each pick is O(1)
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Immutable weighted drop table compiled to an alias sampler. Rolling uses the calling
+// thread's ThreadLocalRandom, so one table can be shared by every thread without contention.
+public final class LootTable {
+    private final GameItem[] items;
+    private final AliasSampler sampler;
+
+    private LootTable(List<GameItem> items, double[] weights) {
+        this.items = items.toArray(new GameItem[0]);
+        this.sampler = new AliasSampler(weights);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public GameItem roll() {
+        return items[sampler.sample(ThreadLocalRandom.current())];
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    public static final class Builder {
+        private final List<GameItem> items = new ArrayList<>();
+        private final List<Double> weights = new ArrayList<>();
+
+        private Builder() {}
+
+        public Builder add(GameItem item, double weight) {
+            items.add(item);
+            weights.add(weight);
+            return this;
+        }
+
+        public Builder add(String itemType, Rarity rarity, double weight) {
+            return add(ItemFactory.createItem(itemType, rarity), weight);
+        }
+
+        public LootTable build() {
+            double[] compiled = new double[weights.size()];
+            for (int i = 0; i < compiled.length; i++) {
+                compiled[i] = weights.get(i);
+            }
+            return new LootTable(items, compiled);
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== Weighted Loot Tables ===");
+
+        Map<String, Integer> drops = new TreeMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            drops.merge(ItemFactory.createRandomItem("Dragon").getRarity(), 1, Integer::sum);
+        }
+        System.out.println("Dragon drops by rarity over 100k rolls: " + drops);
+
+        drops.clear();
+        for (int i = 0; i < 100_000; i++) {
+            drops.merge(ItemFactory.createRandomItem("Goblin").getRarity(), 1, Integer::sum);
+        }
+        System.out.println("Goblin drops by rarity over 100k rolls: " + drops);
+
+        // A big table: cost per roll stays flat as entries grow
+        for (int entries : new int[] {4, 1_000, 10_000}) {
+            Builder builder = LootTable.builder();
+            Random weights = new Random(42);
+            for (int i = 0; i < entries; i++) {
+                builder.add(ItemFactory.createRandomItem(), 1 + weights.nextInt(100));
+            }
+            LootTable table = builder.build();
+            int rolls = 10_000_000;
+            long checksum = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < rolls; i++) {
+                checksum += table.roll().getValue();
+            }
+            System.out.printf("%6d entries: %.1f ns per roll (checksum %d)%n",
+                    entries, (double) (System.nanoTime() - start) / rolls, checksum);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.luno.stage4;// Go to Java - Stage 4.7: Primitive Collections for Hot Counters
+
+import java.util.*;
+
+// Maps names to dense int ids (0, 1, 2, ...) with an open-addressing table.
+// Safe to share between threads: looking up a known name takes no lock, allocates nothing and
+// boxes nothing; only the first sighting of a name takes the lock to assign its id.
+final class NameInterner {
+    // Immutable, so a reader that races a registration sees either null or the whole entry
+    private static final class Entry {
+        final String name;
+        final int id;
+
+        Entry(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+    }
+
+    private volatile Entry[] table = new Entry[16];
+    private volatile String[] names = new String[16];
+    private volatile int size;
+
+    // Returns the id for name, assigning the next free id the first time it is seen
+    int intern(String name) {
+        int id = lookup(table, name);
+        return id >= 0 ? id : register(name);
+    }
+
+    // Returns the id for name, or -1 if it has never been interned
+    int find(String name) {
+        int id = lookup(table, name);
+        if (id >= 0) {
+            return id;
+        }
+        synchronized (this) {
+            return lookup(table, name);  // a miss may just be a registration not yet visible here
+        }
+    }
+
+    String nameOf(int id) {
+        String[] current = names;
+        if (id < current.length && current[id] != null) {
+            return current[id];
+        }
+        synchronized (this) {
+            return names[id];
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Every id below a size() read before this call has its name in place
+    String[] names() {
+        return names;
+    }
+
+    private synchronized int register(String name) {
+        Entry[] current = table;
+        int existing = lookup(current, name);
+        if (existing >= 0) {
+            return existing;
+        }
+        int id = size;
+        String[] byId = names;
+        if (id == byId.length) {
+            byId = Arrays.copyOf(byId, byId.length * 2);
+        }
+        byId[id] = name;
+        names = byId;
+        if ((id + 1) * 2 > current.length) {
+            current = rehash(current);
+        }
+        insert(current, new Entry(name, id));
+        table = current;
+        size = id + 1;  // volatile write after the name is in place
+        return id;
+    }
+
+    private static int lookup(Entry[] entries, String name) {
+        int mask = entries.length - 1;
+        int slot = mix(name.hashCode()) & mask;
+        Entry entry;
+        while ((entry = entries[slot]) != null) {
+            if (entry.name.equals(name)) {
+                return entry.id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static void insert(Entry[] entries, Entry entry) {
+        int mask = entries.length - 1;
+        int slot = mix(entry.name.hashCode()) & mask;
+        while (entries[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        entries[slot] = entry;
+    }
+
+    private static Entry[] rehash(Entry[] old) {
+        Entry[] grown = new Entry[old.length * 2];
+        for (Entry entry : old) {
+            if (entry != null) {
+                insert(grown, entry);
+            }
+        }
+        return grown;
+    }
+
+    static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
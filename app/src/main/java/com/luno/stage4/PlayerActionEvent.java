@@ -0,0 +1,55 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+import java.util.*;
+
+// Something a player did, e.g. KILL_ENEMY; extra parameters such as enemyType go in the data map
+class PlayerActionEvent implements GameEvent {
+    private final String eventType;
+    private final long timestamp;
+    private final Map<String, Object> eventData;
+    private String topic;  // built on first use
+
+    public PlayerActionEvent(String action, String playerName, Object... params) {
+        this.eventType = "PLAYER_ACTION";
+        this.timestamp = System.currentTimeMillis();
+        this.eventData = new HashMap<>();
+        this.eventData.put("action", action);
+        this.eventData.put("playerName", playerName);
+
+        // Add additional parameters
+        for (int i = 0; i < params.length; i += 2) {
+            if (i + 1 < params.length) {
+                eventData.put(params[i].toString(), params[i + 1]);
+            }
+        }
+    }
+
+    // Restores an event read back from the EventJournal, keeping its original timestamp
+    PlayerActionEvent(long timestamp, Map<String, Object> eventData) {
+        this.eventType = "PLAYER_ACTION";
+        this.timestamp = timestamp;
+        this.eventData = new HashMap<>(eventData);
+    }
+
+    @Override
+    public String getEventType() { return eventType; }
+
+    @Override
+    public long getTimestamp() { return timestamp; }
+
+    @Override
+    public Map<String, Object> getEventData() { return new HashMap<>(eventData); }
+
+    @Override
+    public String getTopic() {
+        if (topic == null) {
+            topic = eventType + "." + eventData.get("action");
+        }
+        return topic;
+    }
+
+    // Direct accessors for hot handlers - no defensive copy of the data map
+    public String getAction() { return (String) eventData.get("action"); }
+    public String getPlayerName() { return (String) eventData.get("playerName"); }
+    public Object getParam(String key) { return eventData.get(key); }
+}
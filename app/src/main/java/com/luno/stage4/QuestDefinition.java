@@ -0,0 +1,137 @@
+package com.luno.stage4;// Go to Java - Stage 4.8: Declarative Quest Rules
+
+import java.util.*;
+
+// Immutable quest definition: which action advances it, optional filters on the
+// event parameters, how many matching actions complete it and what it rewards.
+final class QuestDefinition {
+    static final String INDEXED_FILTER = "enemyType";
+
+    private final String id;
+    private final String action;
+    private final Map<String, String> filters;
+    private final int targetCount;
+    private final String rewardItemType;
+    private final String rewardRarity;
+    private final String indexedValue;
+    private final boolean residualFilters;
+
+    private QuestDefinition(Builder builder) {
+        this.id = builder.id;
+        this.action = builder.action;
+        this.filters = Collections.unmodifiableMap(new LinkedHashMap<>(builder.filters));
+        this.targetCount = builder.targetCount;
+        this.rewardItemType = builder.rewardItemType;
+        this.rewardRarity = builder.rewardRarity;
+        this.indexedValue = filters.get(INDEXED_FILTER);
+        this.residualFilters = filters.size() > (indexedValue == null ? 0 : 1);
+    }
+
+    public static Builder builder(String id) {
+        return new Builder(id);
+    }
+
+    // One-line format: "id | ACTION | key=value,key=value | count | ItemType:Rarity"
+    // The filter and reward columns may be left empty.
+    public static QuestDefinition parse(String line) {
+        String[] columns = line.split("\\|", -1);
+        if (columns.length != 5) {
+            throw new IllegalArgumentException("Expected 5 columns in quest definition: " + line);
+        }
+        Builder builder = builder(columns[0].trim())
+                .action(columns[1].trim())
+                .count(Integer.parseInt(columns[3].trim()));
+        for (String filter : columns[2].split(",")) {
+            if (!filter.isBlank()) {
+                String[] pair = filter.split("=", 2);
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Filter must be key=value: " + filter);
+                }
+                builder.where(pair[0].trim(), pair[1].trim());
+            }
+        }
+        if (!columns[4].isBlank()) {
+            String[] reward = columns[4].trim().split(":", 2);
+            builder.reward(reward[0].trim(), reward.length > 1 ? reward[1].trim() : "Common");
+        }
+        return builder.build();
+    }
+
+    public String getId() { return id; }
+    public String getAction() { return action; }
+    public Map<String, String> getFilters() { return filters; }
+    public int getTargetCount() { return targetCount; }
+    public String getRewardItemType() { return rewardItemType; }
+    public String getRewardRarity() { return rewardRarity; }
+
+    // The filter value used for the index, or null if the quest matches any value
+    String indexedValue() {
+        return indexedValue;
+    }
+
+    // Whether any filter besides the indexed one still has to be checked per event
+    boolean hasResidualFilters() {
+        return residualFilters;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s x%d %s", id, action, targetCount, filters);
+    }
+
+    static final class Builder {
+        private final String id;
+        private String action;
+        private final Map<String, String> filters = new LinkedHashMap<>();
+        private int targetCount = 1;
+        private String rewardItemType;
+        private String rewardRarity;
+
+        private Builder(String id) {
+            this.id = id;
+        }
+
+        Builder action(String action) {
+            this.action = action;
+            return this;
+        }
+
+        Builder where(String key, String value) {
+            filters.put(key, value);
+            return this;
+        }
+
+        Builder count(int targetCount) {
+            this.targetCount = targetCount;
+            return this;
+        }
+
+        Builder reward(String itemType, String rarity) {
+            this.rewardItemType = itemType;
+            this.rewardRarity = rarity;
+            return this;
+        }
+
+        QuestDefinition build() {
+            if (id == null || id.isBlank()) {
+                throw new IllegalArgumentException("Quest id cannot be empty");
+            }
+            if (action == null || action.isBlank()) {
+                throw new IllegalArgumentException("Quest " + id + " needs an action");
+            }
+            if (targetCount < 1) {
+                throw new IllegalArgumentException("Quest " + id + " needs a positive count");
+            }
+            // Rewards are created when the quest completes, so a bad one must fail here, not mid-game
+            if (rewardItemType != null) {
+                if (!ItemFactory.isKnownType(rewardItemType)) {
+                    throw new IllegalArgumentException("Quest " + id + " rewards unknown item type: " + rewardItemType);
+                }
+                if (Rarity.fromName(rewardRarity) == null) {
+                    throw new IllegalArgumentException("Quest " + id + " rewards unknown rarity: " + rewardRarity);
+                }
+            }
+            return new QuestDefinition(this);
+        }
+    }
+}
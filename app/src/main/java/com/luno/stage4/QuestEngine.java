@@ -0,0 +1,201 @@
+package com.luno.stage4;// Go to Java - Stage 4.8: Declarative Quest Rules
+// Coming from Go: Quest definitions are plain data, "compiled" into lookup maps once at startup
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+// Compiles quest definitions into an index keyed by action and enemy type, so an event
+// only visits the quests it can actually advance. Progress per (player, quest) lives in a
+// primitive counter map keyed by interned ids.
+public class QuestEngine {
+    interface CompletionListener {
+        void onQuestComplete(String playerName, QuestDefinition quest);
+    }
+
+    private static final int[] NO_QUESTS = new int[0];
+
+    // Candidate quest ids for one action: by indexed filter value, plus quests matching any value
+    private static final class ActionIndex {
+        final Map<String, int[]> byValue = new HashMap<>();
+        int[] anyValue = NO_QUESTS;
+    }
+
+    private final QuestDefinition[] quests;
+    private final Map<String, ActionIndex> index = new HashMap<>();
+    private final Map<String, Integer> questIds = new HashMap<>();
+    private final NameInterner players = new NameInterner();
+    private final LongIntCounterMap progress = new LongIntCounterMap();
+
+    public QuestEngine(Collection<QuestDefinition> definitions) {
+        this.quests = definitions.toArray(new QuestDefinition[0]);
+        for (int id = 0; id < quests.length; id++) {
+            QuestDefinition quest = quests[id];
+            if (questIds.put(quest.getId(), id) != null) {
+                throw new IllegalArgumentException("Duplicate quest id: " + quest.getId());
+            }
+            ActionIndex actionIndex = index.computeIfAbsent(quest.getAction(), k -> new ActionIndex());
+            String value = quest.indexedValue();
+            if (value == null) {
+                actionIndex.anyValue = append(actionIndex.anyValue, id);
+            } else {
+                actionIndex.byValue.merge(value, new int[] {id}, QuestEngine::concat);
+            }
+        }
+    }
+
+    // The rule set QuestHandler always had: kill killTarget of an enemy type for an Epic Sword.
+    // Progress keeps counting past the target, so these quests double as per-type kill counters.
+    static QuestEngine killQuests(int killTarget, String... enemyTypes) {
+        List<QuestDefinition> definitions = new ArrayList<>();
+        for (String enemyType : enemyTypes) {
+            definitions.add(QuestDefinition.builder(killQuestId(enemyType))
+                    .action("KILL_ENEMY")
+                    .where("enemyType", enemyType)
+                    .count(killTarget)
+                    .reward("Sword", "Epic")
+                    .build());
+        }
+        return new QuestEngine(definitions);
+    }
+
+    static String killQuestId(String enemyType) {
+        return "kill-" + enemyType.toLowerCase();
+    }
+
+    // Advances every quest the event matches by amount, reporting quests that complete as a result
+    public void onAction(PlayerActionEvent event, int amount, CompletionListener listener) {
+        ActionIndex actionIndex = index.get(event.getAction());
+        if (actionIndex == null) {
+            return;
+        }
+        Object indexedValue = event.getParam(QuestDefinition.INDEXED_FILTER);
+        int[] matching = indexedValue == null ? null : actionIndex.byValue.get(indexedValue.toString());
+        if (matching == null && actionIndex.anyValue.length == 0) {
+            return;
+        }
+
+        int player = players.intern(event.getPlayerName());
+        if (matching != null) {
+            advance(matching, event, player, amount, listener);
+        }
+        advance(actionIndex.anyValue, event, player, amount, listener);
+    }
+
+    private void advance(int[] candidates, PlayerActionEvent event, int player, int amount, CompletionListener listener) {
+        for (int questId : candidates) {
+            QuestDefinition quest = quests[questId];
+            if (quest.hasResidualFilters() && !matchesFilters(quest, event)) {
+                continue;
+            }
+            int after = progress.addTo(pack(player, questId), amount);
+            int before = after - amount;
+            if (before < quest.getTargetCount() && after >= quest.getTargetCount()) {
+                listener.onQuestComplete(players.nameOf(player), quest);
+            }
+        }
+    }
+
+    // Residual filters beyond the indexed one are only checked for candidates
+    private static boolean matchesFilters(QuestDefinition quest, PlayerActionEvent event) {
+        for (Map.Entry<String, String> filter : quest.getFilters().entrySet()) {
+            Object value = event.getParam(filter.getKey());
+            if (value == null || !filter.getValue().equals(value.toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getProgress(String playerName, String questId) {
+        Integer quest = questIds.get(questId);
+        int player = players.find(playerName);
+        return (quest == null || player < 0) ? 0 : progress.get(pack(player, quest));
+    }
+
+    public int getQuestCount() {
+        return quests.length;
+    }
+
+    void writeProgress(DataOutputStream out) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        progress.forEach((key, value) -> entries.add(new long[] {key, value}));
+        out.writeInt(entries.size());
+        for (long[] entry : entries) {
+            out.writeUTF(players.nameOf((int) (entry[0] >>> 32)));
+            out.writeUTF(quests[(int) entry[0]].getId());
+            out.writeInt((int) entry[1]);
+        }
+    }
+
+    // Reads saved progress; running the result replaces the current progress with it
+    Runnable readProgress(DataInputStream in) throws IOException {
+        int entries = in.readInt();
+        String[] playerNames = new String[entries];
+        int[] questIndexes = new int[entries];
+        int[] counts = new int[entries];
+        for (int i = 0; i < entries; i++) {
+            playerNames[i] = in.readUTF();
+            Integer quest = questIds.get(in.readUTF());
+            questIndexes[i] = quest != null ? quest : -1;  // quests removed since the checkpoint are dropped
+            counts[i] = in.readInt();
+        }
+        return () -> {
+            progress.clear();
+            for (int i = 0; i < entries; i++) {
+                if (questIndexes[i] >= 0) {
+                    progress.addTo(pack(players.intern(playerNames[i]), questIndexes[i]), counts[i]);
+                }
+            }
+        };
+    }
+
+    private static long pack(int playerId, int questId) {
+        return ((long) playerId << 32) | (questId & 0xFFFFFFFFL);
+    }
+
+    private static int[] append(int[] ids, int id) {
+        int[] grown = Arrays.copyOf(ids, ids.length + 1);
+        grown[ids.length] = id;
+        return grown;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] joined = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== Declarative Quest Rules ===");
+        List<QuestDefinition> definitions = new ArrayList<>();
+        definitions.add(QuestDefinition.parse("goblin-slayer | KILL_ENEMY | enemyType=Goblin | 3 | Shield:Rare"));
+        definitions.add(QuestDefinition.parse("dragon-bane | KILL_ENEMY | enemyType=Dragon | 1 | Sword:Legendary"));
+        definitions.add(QuestDefinition.parse("bloodthirsty | KILL_ENEMY | | 5 | Potion:Epic"));
+
+        // Pad the rule set with many quests on other enemy types; they are never visited for Goblins
+        for (int i = 0; i < 200_000; i++) {
+            definitions.add(QuestDefinition.builder("bounty-" + i)
+                    .action("KILL_ENEMY").where("enemyType", "Bandit" + i).count(10).build());
+        }
+        QuestEngine engine = new QuestEngine(definitions);
+        System.out.println("Compiled " + engine.getQuestCount() + " quests");
+
+        CompletionListener announce = (player, quest) -> System.out.println("🎯 " + player + " completed "
+                + quest.getId() + " -> " + quest.getRewardRarity() + " " + quest.getRewardItemType());
+        String[] kills = {"Goblin", "Goblin", "Orc", "Goblin", "Dragon"};
+        for (String enemy : kills) {
+            engine.onAction(new PlayerActionEvent("KILL_ENEMY", "Conan", "enemyType", enemy), 1, announce);
+        }
+
+        PlayerActionEvent goblinKill = new PlayerActionEvent("KILL_ENEMY", "Xena", "enemyType", "Goblin");
+        int events = 2_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            engine.onAction(goblinKill, 1, (player, quest) -> { });
+        }
+        System.out.printf("%.1f ns per event with %d quests loaded%n",
+                (double) (System.nanoTime() - start) / events, engine.getQuestCount());
+    }
+}
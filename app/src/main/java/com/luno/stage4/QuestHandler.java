@@ -0,0 +1,119 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Can be registered either per event (registerHandler) or coalesced (registerCoalescingHandler).
+// Coalesced, a burst of kills by one player of one enemy type becomes a single call that adds
+// the whole count; events are keyed by player, action and enemyType only, so quests that
+// filter on other parameters should stay on per-event registration.
+// All counting happens in the QuestEngine; kill totals are read back from its kill quests.
+class QuestHandler implements EventHandler<PlayerActionEvent>, CoalescingEventHandler<PlayerActionEvent>,
+        CheckpointableHandler {
+    private static final String[] ENEMY_TYPES = {"Goblin", "Orc", "Skeleton", "Dragon"};
+    private static final int NO_KEY_ID = 0xFFFF;  // enemy id slot of a key without an enemy type
+
+    private final NameInterner keyPlayers = new NameInterner();
+    private final NameInterner keyActions = new NameInterner();
+    private final NameInterner keyEnemies = new NameInterner();
+    private final QuestEngine questEngine;
+    private final EventBus eventBus;  // where reward items are published; null to skip rewards
+    private final QuestEngine.CompletionListener awardReward = this::awardReward;
+
+    public QuestHandler(EventBus eventBus) {
+        this(eventBus, 10);
+    }
+
+    public QuestHandler(EventBus eventBus, int killTarget) {
+        this(eventBus, QuestEngine.killQuests(killTarget, ENEMY_TYPES));
+    }
+
+    // Counts progress and reports completions without publishing reward items
+    public QuestHandler(int killTarget) {
+        this(null, killTarget);
+    }
+
+    public QuestHandler(EventBus eventBus, QuestEngine questEngine) {
+        this.eventBus = eventBus;
+        this.questEngine = questEngine;
+    }
+
+    @Override
+    public void handle(PlayerActionEvent event) {
+        handleCoalesced(event, 1);
+    }
+
+    // player id (32 bits) | action id (16 bits) | enemy type id (16 bits, NO_KEY_ID = none)
+    @Override
+    public long coalesceKey(PlayerActionEvent event) {
+        Object enemyType = event.getParam("enemyType");
+        int enemyId = enemyType instanceof String ? shortKeyId(keyEnemies, (String) enemyType) : NO_KEY_ID;
+        return ((long) keyPlayers.intern(event.getPlayerName()) << 32)
+                | ((long) shortKeyId(keyActions, event.getAction()) << 16)
+                | enemyId;
+    }
+
+    // Action and enemy type ids get 16 bits each in the key. Rather than letting a larger id
+    // wrap into another name's key (merging unrelated events), refuse names past the limit.
+    private static int shortKeyId(NameInterner names, String name) {
+        int id = names.find(name);
+        if (id < 0) {
+            if (names.size() >= NO_KEY_ID) {
+                throw tooManyKeyNames(name);
+            }
+            id = names.intern(name);
+        }
+        if (id >= NO_KEY_ID) {
+            throw tooManyKeyNames(name);  // another thread took the last free id first
+        }
+        return id;
+    }
+
+    private static IllegalStateException tooManyKeyNames(String name) {
+        return new IllegalStateException("Cannot coalesce more than " + NO_KEY_ID
+                + " distinct quest actions or enemy types: " + name);
+    }
+
+    @Override
+    public void handleCoalesced(PlayerActionEvent latest, int count) {
+        questEngine.onAction(latest, count, awardReward);
+    }
+
+    private void awardReward(String playerName, QuestDefinition quest) {
+        System.out.println("🎯 Quest Complete: " + playerName + " finished " + quest.getId() + "!");
+        if (eventBus != null && quest.getRewardItemType() != null) {
+            GameItem questReward = ItemFactory.createItem(quest.getRewardItemType(), quest.getRewardRarity());
+            eventBus.publishEvent(new ItemEvent("FOUND", playerName, questReward.getName(), questReward.getRarity()));
+        }
+    }
+
+    @Override
+    public Class<PlayerActionEvent> getEventType() {
+        return PlayerActionEvent.class;
+    }
+
+    // Kills of one enemy type, as counted by its kill quest; 0 if the engine has no such quest
+    public int getKills(String playerName, String enemyType) {
+        return questEngine.getProgress(playerName, QuestEngine.killQuestId(enemyType));
+    }
+
+    public int getQuestProgress(String playerName, String questId) {
+        return questEngine.getProgress(playerName, questId);
+    }
+
+    @Override
+    public String getCheckpointName() {
+        return "quests";
+    }
+
+    @Override
+    public void writeCheckpoint(DataOutputStream out) throws IOException {
+        questEngine.writeProgress(out);
+    }
+
+    @Override
+    public Runnable readCheckpoint(DataInputStream in) throws IOException {
+        return questEngine.readProgress(in);
+    }
+}
@@ -0,0 +1,40 @@
+package com.luno.stage4;// Go to Java - Stage 4.3: Event-Driven Game System
+
+// The standard item rarities and how much each scales an item's stats and value
+enum Rarity {
+    COMMON("Common", 1),
+    RARE("Rare", 2),
+    EPIC("Epic", 3),
+    LEGENDARY("Legendary", 5);
+
+    private static final Rarity[] VALUES = values();
+
+    private final String displayName;
+    private final int multiplier;
+
+    Rarity(String displayName, int multiplier) {
+        this.displayName = displayName;
+        this.multiplier = multiplier;
+    }
+
+    public String getDisplayName() { return displayName; }
+    public int getMultiplier() { return multiplier; }
+
+    // Returns null for names that are not one of the standard rarities
+    static Rarity fromName(String name) {
+        for (Rarity rarity : VALUES) {
+            if (rarity.displayName.equals(name)) {
+                return rarity;
+            }
+        }
+        return null;
+    }
+
+    static Rarity byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    static int count() {
+        return VALUES.length;
+    }
+}
@@ -0,0 +1,325 @@
+package com.luno.stage4;// Go to Java - Stage 4.6: Sharded Event Bus
+// Coming from Go: One goroutine + channel per shard, with a fan-in goroutine for the merged stream
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Partitions events across N single-threaded shards by a key such as the player name.
+// Each shard owns a plain EventBus that only its thread touches, so the unsynchronized
+// EventBus internals stay safe. Events for one key always land on the same shard, so
+// per-player ordering holds as long as each player's events are published from one thread.
+// Once close() starts, further publishes are rejected rather than queued behind the final
+// drain, and a closed bus cannot be restarted.
+//
+// Handlers come in two flavours:
+// - shard handlers: one instance per shard, created by a factory, seeing only that shard's keys
+// - merged handlers: a single instance fed by every shard on one extra thread (fan-in)
+public class ShardedEventBus implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final int DRAIN_BATCH = 256;
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int CLOSING = 2;  // rejecting publishes, shards still draining
+    private static final int CLOSED = 3;
+
+    private final Shard[] shards;
+    private final Function<GameEvent, String> partitionKey;
+    private final Shard merged;
+    private final LongAdder publishing = new LongAdder();  // publishEvent calls in progress
+    private volatile int state = NEW;
+
+    public ShardedEventBus(int shardCount, Function<GameEvent, String> partitionKey) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        this.partitionKey = partitionKey;
+        this.merged = new Shard("event-shard-merged", null);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard("event-shard-" + i, merged);
+        }
+    }
+
+    // Default partition key: the player an event belongs to. Combat is keyed by its player side,
+    // so an enemy hitting a player lands on the same shard as that player's own actions.
+    public static String playerKey(GameEvent event) {
+        String player;
+        if (event instanceof CombatEvent) {
+            player = ((CombatEvent) event).getPlayerName();
+        } else if (event instanceof PlayerActionEvent) {
+            player = ((PlayerActionEvent) event).getPlayerName();
+        } else if (event instanceof ItemEvent) {
+            player = ((ItemEvent) event).getPlayerName();
+        } else {
+            Object name = event.getEventData().get("playerName");
+            player = name == null ? null : name.toString();
+        }
+        return player == null ? "" : player;
+    }
+
+    // The factory is called once per shard with that shard's bus, e.g. QuestHandler::new
+    public <T extends GameEvent> void registerShardHandler(Function<EventBus, ? extends EventHandler<T>> factory) {
+        checkNotStarted();
+        for (Shard shard : shards) {
+            shard.bus.registerHandler(factory.apply(shard.bus));
+        }
+    }
+
+    public <T extends GameEvent> void registerMergedHandler(EventHandler<T> handler) {
+        checkNotStarted();
+        merged.bus.registerHandler(handler);
+        merged.inUse = true;
+    }
+
+    // Instruments every shard bus and reports each shard's queue depth
+    public void attachMetrics(EventBusMetrics metrics) {
+        checkNotStarted();
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = shards[i];
+            shard.bus.attachMetrics(metrics);
+            metrics.registerQueueDepth("shard-" + i, shard.queue::size);
+        }
+        merged.bus.attachMetrics(metrics);
+        metrics.registerQueueDepth("shard-merged", merged.queue::size);
+    }
+
+    public void start() {
+        if (state == CLOSING || state == CLOSED) {
+            throw new IllegalStateException("ShardedEventBus has been closed and cannot be restarted");
+        }
+        checkNotStarted();
+        state = RUNNING;
+        merged.start();
+        for (Shard shard : shards) {
+            shard.start();
+        }
+    }
+
+    // Blocks when the target shard's queue is full, pushing back on publishers instead of growing memory
+    public void publishEvent(GameEvent event) {
+        // Counted before the state check, so close() either sees this call and waits for it,
+        // or this call sees the bus closing and is rejected
+        publishing.increment();
+        try {
+            if (state != RUNNING) {
+                throw new IllegalStateException("ShardedEventBus is not running");
+            }
+            shards[shardFor(partitionKey.apply(event))].enqueue(event);
+        } finally {
+            publishing.decrement();
+        }
+    }
+
+    int shardFor(String key) {
+        return Math.floorMod(key.hashCode(), shards.length);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Waits until every event published before this call has been handled, including merged handlers.
+    // Like publishEvent, only allowed while the bus is running: before start() or after close()
+    // no shard would ever reach the barrier.
+    public void flush() throws InterruptedException {
+        publishing.increment();  // close() waits for an accepted flush to finish before stopping shards
+        try {
+            if (state != RUNNING) {
+                throw new IllegalStateException("ShardedEventBus is not running");
+            }
+            awaitBarriers();
+        } finally {
+            publishing.decrement();
+        }
+    }
+
+    private void awaitBarriers() throws InterruptedException {
+        CountDownLatch shardsDone = new CountDownLatch(shards.length);
+        for (Shard shard : shards) {
+            shard.enqueue(new Barrier(shardsDone));
+        }
+        shardsDone.await();
+        CountDownLatch mergedDone = new CountDownLatch(1);
+        merged.enqueue(new Barrier(mergedDone));
+        mergedDone.await();
+    }
+
+    // Stops accepting events, drains everything already published, then stops the shard threads
+    @Override
+    public void close() {
+        if (state != RUNNING) {
+            if (state == NEW) {
+                state = CLOSED;
+            }
+            return;
+        }
+        state = CLOSING;
+        try {
+            while (publishing.sum() != 0) {
+                Thread.onSpinWait();  // publishes and flushes that passed the state check are still running
+            }
+            awaitBarriers();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            state = CLOSED;
+            for (Shard shard : shards) {
+                shard.stop();
+            }
+            merged.stop();
+        }
+    }
+
+    private void checkNotStarted() {
+        if (state != NEW) {
+            throw new IllegalStateException("Handlers must be registered before the bus is started");
+        }
+    }
+
+    // Marker pushed through a shard queue; counted down once everything ahead of it is handled
+    private static final class Barrier implements GameEvent {
+        private final CountDownLatch latch;
+
+        Barrier(CountDownLatch latch) { this.latch = latch; }
+
+        @Override
+        public String getEventType() { return "BARRIER"; }
+
+        @Override
+        public long getTimestamp() { return 0; }
+
+        @Override
+        public Map<String, Object> getEventData() { return Collections.emptyMap(); }
+    }
+
+    // Shard bus that also forwards every event it handles (including ones its handlers publish)
+    // to the merged stream
+    private static final class ShardBus extends EventBus {
+        private final Shard downstream;
+
+        ShardBus(Shard downstream) { this.downstream = downstream; }
+
+        @Override
+        public <T extends GameEvent> void publishEvent(T event) {
+            super.publishEvent(event);
+            if (downstream != null && downstream.inUse) {
+                downstream.enqueue(event);
+            }
+        }
+    }
+
+    private final class Shard implements Runnable {
+        private final BlockingQueue<GameEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final EventBus bus;
+        private final Thread thread;
+        private boolean inUse;  // only written before start()
+
+        Shard(String name, Shard downstream) {
+            this.bus = new ShardBus(downstream);
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void stop() {
+            thread.interrupt();
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void enqueue(GameEvent event) {
+            try {
+                queue.put(event);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while publishing event", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            List<GameEvent> batch = new ArrayList<>(DRAIN_BATCH);
+            while (state != CLOSED || !queue.isEmpty()) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    if (state == CLOSED) {
+                        break;
+                    }
+                    continue;
+                }
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                for (GameEvent event : batch) {
+                    if (event instanceof Barrier) {
+                        ((Barrier) event).latch.countDown();
+                    } else {
+                        bus.publishEvent(event);
+                    }
+                }
+                batch.clear();
+                bus.clearHistory();  // the shard bus is a dispatcher, history is not kept per shard
+            }
+        }
+    }
+
+    // Per-shard handler used by the demo: counts kills without printing
+    static final class KillCounter implements EventHandler<PlayerActionEvent> {
+        long kills;
+
+        @Override
+        public void handle(PlayerActionEvent event) { kills++; }
+
+        @Override
+        public Class<PlayerActionEvent> getEventType() { return PlayerActionEvent.class; }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== Sharded Event Bus ===");
+        String[] enemies = {"Goblin", "Orc", "Skeleton", "Dragon"};
+        int events = 400_000;
+
+        for (int shardCount : new int[] {1, 2, 4}) {
+            List<KillCounter> counters = new ArrayList<>();
+            KillCounter mergedCounter = new KillCounter();
+            ShardedEventBus bus = new ShardedEventBus(shardCount, ShardedEventBus::playerKey);
+            bus.registerShardHandler(shardBus -> {
+                KillCounter counter = new KillCounter();
+                counters.add(counter);
+                return counter;
+            });
+            bus.registerMergedHandler(mergedCounter);
+            bus.start();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                String player = "Player" + (i % 1000);
+                bus.publishEvent(new PlayerActionEvent("KILL_ENEMY", player, "enemyType", enemies[i % enemies.length]));
+            }
+            bus.close();
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            long shardTotal = 0;
+            for (KillCounter counter : counters) {
+                shardTotal += counter.kills;
+            }
+            System.out.println(shardCount + " shard(s): " + shardTotal + " kills handled, "
+                    + mergedCounter.kills + " merged, " + elapsedMs + " ms");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+// Which enemies appear at which player level, as data: each level band has its own weighted
+// mix, compiled into an alias sampler. Picking is a binary search over the band starts plus an
+// O(1) sample, with no allocation. Levels below the first band use the first band; levels above
+// the last band start use the last.
+final class SpawnTable {
+    static final SpawnTable DEFAULT = builder()
+            .band(1).weight(EnemyType.GOBLIN, 80).weight(EnemyType.SKELETON, 20)
+            .band(5).weight(EnemyType.GOBLIN, 30).weight(EnemyType.SKELETON, 60).weight(EnemyType.DRAGON, 10)
+            .band(15).weight(EnemyType.GOBLIN, 10).weight(EnemyType.SKELETON, 40).weight(EnemyType.DRAGON, 50)
+            .build();
+
+    // Sorted, one per band; sized by the number of bands, not by how far apart their levels are
+    private final int[] bandStarts;
+    private final AliasSampler[] samplers; // sample index = EnemyType ordinal
+
+    private SpawnTable(int[] bandStarts, double[][] weights) {
+        this.bandStarts = bandStarts;
+        this.samplers = new AliasSampler[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            samplers[i] = new AliasSampler(weights[i]);
+        }
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    EnemyType pick(int playerLevel, RandomGenerator random) {
+        int index = Arrays.binarySearch(bandStarts, playerLevel);
+        // On a miss, the band is the one whose start comes just before the insertion point
+        int band = index >= 0 ? index : Math.max(0, -index - 2);
+        return EnemyType.byOrdinal(samplers[band].sample(random));
+    }
+
+    static final class Builder {
+        private final List<Integer> bandStarts = new ArrayList<>();
+        private final List<double[]> weights = new ArrayList<>();
+
+        // Starts a band covering levels from minLevel up to the next band's start
+        Builder band(int minLevel) {
+            if (minLevel < 1) {
+                throw new IllegalArgumentException("Level must be positive: " + minLevel);
+            }
+            if (!bandStarts.isEmpty() && minLevel <= bandStarts.get(bandStarts.size() - 1)) {
+                throw new IllegalArgumentException("Bands must start at increasing levels: " + minLevel);
+            }
+            bandStarts.add(minLevel);
+            weights.add(new double[EnemyType.count()]);
+            return this;
+        }
+
+        Builder weight(EnemyType type, double weight) {
+            if (weights.isEmpty()) {
+                throw new IllegalStateException("Call band(minLevel) before adding weights");
+            }
+            weights.get(weights.size() - 1)[type.ordinal()] = weight;
+            return this;
+        }
+
+        SpawnTable build() {
+            if (bandStarts.isEmpty()) {
+                throw new IllegalStateException("Spawn table needs at least one band");
+            }
+            int[] starts = new int[bandStarts.size()];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = bandStarts.get(i);
+            }
+            return new SpawnTable(starts, weights.toArray(new double[0][]));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.luno.stage4;// Go to Java - Stage 4.9: Compact Item Stats
+// Coming from Go: Like iota constants indexing a fixed array instead of a map[string]int
+
+import java.util.*;
+
+// A named item stat with a fixed slot. The set of stats is declared here, up front, so items
+// can store values in a plain int[] indexed by slot and compare ids by identity. Names that
+// are not declared are rejected rather than registered, so the slot table cannot fill up.
+public final class StatId {
+    static final int MAX_STATS = 64;  // one bit per stat in an item's presence mask
+
+    private static final Map<String, StatId> BY_NAME = new HashMap<>();  // written only during class init
+    private static final List<StatId> BY_SLOT = new ArrayList<>();
+
+    public static final StatId ATTACK = declare("attack");
+    public static final StatId DEFENSE = declare("defense");
+    public static final StatId DURABILITY = declare("durability");
+    public static final StatId HEALING = declare("healing");
+    public static final StatId RANGE = declare("range");
+
+    private final String name;
+    private final int slot;
+
+    private StatId(String name, int slot) {
+        this.name = name;
+        this.slot = slot;
+    }
+
+    // The canonical id for a declared stat name
+    public static StatId of(String name) {
+        StatId stat = BY_NAME.get(name);
+        if (stat == null) {
+            throw new IllegalArgumentException("Unknown item stat: " + name);
+        }
+        return stat;
+    }
+
+    private static StatId declare(String name) {
+        if (BY_SLOT.size() == MAX_STATS) {
+            throw new IllegalStateException("Cannot declare more than " + MAX_STATS + " item stats");
+        }
+        StatId id = new StatId(name, BY_SLOT.size());
+        BY_SLOT.add(id);
+        BY_NAME.put(name, id);
+        return id;
+    }
+
+    static StatId bySlot(int slot) {
+        return BY_SLOT.get(slot);
+    }
+
+    public String getName() { return name; }
+    public int getSlot() { return slot; }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== Compact Item Stats ===");
+        GameItem bow = ItemFactory.createItem("Bow", "Epic");
+        System.out.println(bow);
+        System.out.println("Bow attack via StatId: " + bow.getStat(StatId.ATTACK));
+        System.out.println("Bow healing (absent): " + bow.getStat(StatId.HEALING));
+
+        // Rough heap comparison: one million items' worth of stats
+        int items = 1_000_000;
+        Runtime runtime = Runtime.getRuntime();
+
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        List<Map<String, Integer>> maps = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            Map<String, Integer> stats = new HashMap<>();
+            stats.put("attack", 8 + (i & 1023));
+            stats.put("range", 15);
+            stats.put("durability", 80 + (i & 1023));
+            maps.add(stats);
+        }
+        System.gc();
+        long mapBytes = runtime.totalMemory() - runtime.freeMemory() - before;
+        maps = null;
+
+        System.gc();
+        before = runtime.totalMemory() - runtime.freeMemory();
+        List<GameItem> compact = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            compact.add(new GameItem("Bow", "Epic", 300,
+                    Map.of("attack", 8 + (i & 1023), "range", 15, "durability", 80 + (i & 1023))));
+        }
+        System.gc();
+        long itemBytes = runtime.totalMemory() - runtime.freeMemory() - before;
+
+        System.out.printf("HashMap stats: ~%d bytes/item, whole GameItem with int[] stats: ~%d bytes/item%n",
+                mapBytes / items, itemBytes / items);
+        System.out.println("(kept alive: " + compact.size() + " items)");
+    }
+}
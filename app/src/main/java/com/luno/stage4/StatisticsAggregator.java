@@ -0,0 +1,205 @@
+package com.luno.stage4;// Go to Java - Stage 4.17: Per-Thread Statistics Counters
+// Coming from Go: Like giving each goroutine its own counters and summing them on read, instead of one mutex-guarded map
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Counts level-ups, deaths and items found per player, for any number of notifying threads.
+//
+// Each thread writes only to its own table of primitive counters, indexed by a player id from
+// a shared interner, so recording is an array increment with no locking, no boxing and no
+// cache line shared with other writers. Readers merge all tables into an immutable Snapshot,
+// either on demand or on a timer (startPeriodicMerge) for callers that can accept slightly
+// stale numbers. A thread's counts stay in the aggregate after the thread exits.
+public class StatisticsAggregator implements AutoCloseable {
+    static final int LEVEL_UPS = 0;
+    static final int DEATHS = 1;
+    static final int ITEMS_FOUND = 2;
+    private static final int KINDS = 3;
+
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final NameInterner players = new NameInterner();
+    private final List<CounterTable> tables = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<CounterTable> localTable = ThreadLocal.withInitial(this::newTable);
+    private volatile Snapshot latest = Snapshot.EMPTY;
+    private ScheduledExecutorService merger;
+
+    public void recordLevelUp(String playerName) {
+        record(playerName, LEVEL_UPS);
+    }
+
+    public void recordDeath(String playerName) {
+        record(playerName, DEATHS);
+    }
+
+    public void recordItemFound(String playerName) {
+        record(playerName, ITEMS_FOUND);
+    }
+
+    private void record(String playerName, int kind) {
+        localTable.get().increment(players.intern(playerName) * KINDS + kind);
+    }
+
+    private CounterTable newTable() {
+        CounterTable table = new CounterTable();
+        tables.add(table);
+        return table;
+    }
+
+    // Sums every thread's counters now. Counts recorded while the merge runs may or may not be included.
+    public Snapshot snapshot() {
+        int playerCount = players.size();  // read before names: every id below it has its name in place
+        String[] names = players.names();
+        long[] totals = new long[playerCount * KINDS];
+        for (CounterTable table : tables) {
+            long[] counts = table.counts;
+            int limit = Math.min(totals.length, counts.length);
+            for (int i = 0; i < limit; i++) {
+                totals[i] += (long) COUNTS.getAcquire(counts, i);
+            }
+        }
+        Snapshot snapshot = new Snapshot(names, playerCount, totals);
+        latest = snapshot;
+        return snapshot;
+    }
+
+    // Most recent merge, from snapshot() or the periodic merger; never blocks
+    public Snapshot getLatestSnapshot() {
+        return latest;
+    }
+
+    // Merges in the background every periodMillis, so getLatestSnapshot stays fresh
+    public synchronized void startPeriodicMerge(long periodMillis) {
+        if (merger != null) {
+            throw new IllegalStateException("Periodic merge already running");
+        }
+        merger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "statistics-merger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        merger.scheduleAtFixedRate(this::snapshot, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Stops the periodic merger, if any
+    @Override
+    public synchronized void close() {
+        if (merger != null) {
+            merger.shutdownNow();
+            merger = null;
+        }
+    }
+
+    // One thread's counters. Only the owning thread writes; it publishes each update with a
+    // release store so a merging thread reading with acquire sees whole, current values.
+    private static final class CounterTable {
+        volatile long[] counts = new long[64 * KINDS];
+
+        void increment(int index) {
+            long[] current = counts;
+            if (index >= current.length) {
+                // Copy then publish: readers see either the old array or a complete new one
+                current = Arrays.copyOf(current, Math.max(current.length * 2, index + KINDS));
+                counts = current;
+            }
+            COUNTS.setRelease(current, index, current[index] + 1);
+        }
+    }
+
+    // Immutable merged view: per-kind maps of player name to count, players with no events of
+    // that kind left out
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new String[0], 0, new long[0]);
+
+        private final Map<String, Long> levelUps;
+        private final Map<String, Long> deaths;
+        private final Map<String, Long> itemsFound;
+
+        private Snapshot(String[] names, int playerCount, long[] totals) {
+            this.levelUps = byPlayer(names, playerCount, totals, LEVEL_UPS);
+            this.deaths = byPlayer(names, playerCount, totals, DEATHS);
+            this.itemsFound = byPlayer(names, playerCount, totals, ITEMS_FOUND);
+        }
+
+        private static Map<String, Long> byPlayer(String[] names, int playerCount, long[] totals, int kind) {
+            Map<String, Long> counts = new TreeMap<>();
+            for (int player = 0; player < playerCount; player++) {
+                long count = totals[player * KINDS + kind];
+                if (count > 0) {
+                    counts.put(names[player], count);
+                }
+            }
+            return Collections.unmodifiableMap(counts);
+        }
+
+        public Map<String, Long> getLevelUps() { return levelUps; }
+        public Map<String, Long> getDeaths() { return deaths; }
+        public Map<String, Long> getItemsFound() { return itemsFound; }
+    }
+
+    private static long sum(Map<String, Long> counts) {
+        long sum = 0;
+        for (long count : counts.values()) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== Per-Thread Statistics Counters ===");
+        GameEventManager eventManager = new GameEventManager();
+        StatisticsTracker stats = new StatisticsTracker();
+        eventManager.addListener(stats);
+        stats.getAggregator().startPeriodicMerge(50);
+
+        int threads = 8;
+        int eventsPerThread = 1_000_000;
+        String[] playerNames = new String[10_000];
+        for (int i = 0; i < playerNames.length; i++) {
+            playerNames[i] = "Player" + i;
+        }
+
+        long seenMidRun = 0;
+        Thread[] notifiers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            notifiers[t] = new Thread(() -> {
+                for (int i = 0; i < eventsPerThread; i++) {
+                    String player = playerNames[(i * 31 + seed) % playerNames.length];
+                    switch (i % 10) {
+                        case 0: eventManager.notifyPlayerDied(player); break;
+                        case 1: case 2: eventManager.notifyItemFound(player, "Potion"); break;
+                        default: eventManager.notifyPlayerLevelUp(player, i); break;
+                    }
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread notifier : notifiers) {
+            notifier.start();
+        }
+        // Readers watch the periodic merge while writers are running
+        while (notifiers[0].isAlive()) {
+            seenMidRun = Math.max(seenMidRun, sum(stats.getAggregator().getLatestSnapshot().getLevelUps()));
+            Thread.sleep(20);
+        }
+        for (Thread notifier : notifiers) {
+            notifier.join();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        stats.getAggregator().close();
+
+        Snapshot finalView = stats.getStatistics();
+        long total = sum(finalView.getLevelUps()) + sum(finalView.getDeaths()) + sum(finalView.getItemsFound());
+        System.out.printf("%d threads recorded %,d/%,d events in %d ms (%.1f M/s); a periodic merge saw %,d level-ups mid-run%n",
+                threads, total, (long) threads * eventsPerThread, elapsedMs,
+                (double) total / elapsedMs / 1000, seenMidRun);
+        System.out.println("Player0: level ups=" + finalView.getLevelUps().getOrDefault("Player0", 0L)
+                + " deaths=" + finalView.getDeaths().getOrDefault("Player0", 0L)
+                + " items=" + finalView.getItemsFound().getOrDefault("Player0", 0L));
+    }
+}
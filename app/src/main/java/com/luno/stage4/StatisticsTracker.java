@@ -0,0 +1,38 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+// Safe to notify from many threads at once: counts go to per-thread tables in a
+// StatisticsAggregator and are merged into a read-only snapshot when asked for
+class StatisticsTracker implements GameEventListener {
+    private final StatisticsAggregator aggregator = new StatisticsAggregator();
+
+    @Override
+    public void onPlayerLevelUp(String playerName, int newLevel) {
+        aggregator.recordLevelUp(playerName);
+    }
+
+    @Override
+    public void onPlayerDied(String playerName) {
+        aggregator.recordDeath(playerName);
+    }
+
+    @Override
+    public void onItemFound(String playerName, String itemName) {
+        aggregator.recordItemFound(playerName);
+    }
+
+    public StatisticsAggregator getAggregator() {
+        return aggregator;
+    }
+
+    public StatisticsAggregator.Snapshot getStatistics() {
+        return aggregator.snapshot();
+    }
+
+    public void printStatistics() {
+        StatisticsAggregator.Snapshot snapshot = getStatistics();
+        System.out.println("\n=== Game Statistics ===");
+        System.out.println("Level ups: " + snapshot.getLevelUps());
+        System.out.println("Deaths: " + snapshot.getDeaths());
+        System.out.println("Items found: " + snapshot.getItemsFound());
+    }
+}
@@ -0,0 +1,6 @@
+package com.luno.stage4;// Go to Java - Stage 4.2: Common Design Patterns
+
+// The built-in kinds of CombatStrategy, see CombatStrategy.kind()
+enum StrategyKind {
+    AGGRESSIVE, DEFENSIVE, BALANCED, CUSTOM
+}
@@ -0,0 +1,6 @@
+package com.luno.stage4;// Go to Java - Stage 4.14: Topic-Based Subscriptions
+
+// Receives events whose topic matches a subscription pattern
+interface TopicHandler {
+    void onEvent(String topic, GameEvent event);
+}
@@ -0,0 +1,166 @@
+package com.luno.stage4;// Go to Java - Stage 4.14: Topic-Based Subscriptions
+// Coming from Go: Like NATS subject matching ("COMBAT.*", "ITEM.>") done in-process
+
+import java.util.*;
+
+// Routes events by hierarchical topic, e.g. "ITEM.FOUND.Legendary", to subscribers of patterns:
+//   ITEM.FOUND.Legendary  exact topic
+//   COMBAT.*              '*' matches exactly one segment
+//   ITEM.#                '#' (last segment only) matches zero or more remaining segments
+//
+// Patterns are compiled into a trie, so resolving a topic costs one walk down the trie
+// (proportional to topic depth), not a check against every subscriber. Resolved topics are
+// cached until the subscriptions change, so the steady state is a single map lookup.
+// Like EventBus, a router is meant to be used from one thread.
+public class TopicRouter {
+    private static final TopicHandler[] NONE = new TopicHandler[0];
+    private static final int MAX_CACHED_TOPICS = 10_000;
+
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        Node anySegment;                                    // '*'
+        final List<TopicHandler> exact = new ArrayList<>();  // pattern ends here
+        final List<TopicHandler> rest = new ArrayList<>();   // pattern ends here with '#'
+    }
+
+    private final Node root = new Node();
+    private final Map<String, TopicHandler[]> resolved = new HashMap<>();
+
+    public void subscribe(String pattern, TopicHandler handler) {
+        Node node = root;
+        String[] segments = parse(pattern);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.equals("#")) {
+                node.rest.add(handler);
+                resolved.clear();
+                return;
+            }
+            if (segment.equals("*")) {
+                if (node.anySegment == null) {
+                    node.anySegment = new Node();
+                }
+                node = node.anySegment;
+            } else {
+                node = node.children.computeIfAbsent(segment, k -> new Node());
+            }
+        }
+        node.exact.add(handler);
+        resolved.clear();
+    }
+
+    public boolean unsubscribe(String pattern, TopicHandler handler) {
+        Node node = root;
+        for (String segment : parse(pattern)) {
+            if (segment.equals("#")) {
+                resolved.clear();
+                return node.rest.remove(handler);
+            }
+            node = segment.equals("*") ? node.anySegment : node.children.get(segment);
+            if (node == null) {
+                return false;
+            }
+        }
+        resolved.clear();
+        return node.exact.remove(handler);
+    }
+
+    public boolean hasSubscribers() {
+        return !root.children.isEmpty() || root.anySegment != null || !root.rest.isEmpty() || !root.exact.isEmpty();
+    }
+
+    // Delivers the event to every matching subscription; a failing handler does not stop the others
+    public void route(GameEvent event) {
+        route(event, null);
+    }
+
+    // Same, timing each delivery in metrics when it is not null
+    void route(GameEvent event, EventBusMetrics metrics) {
+        String topic = event.getTopic();
+        for (TopicHandler handler : match(topic)) {
+            try {
+                if (metrics != null) {
+                    metrics.invokeTopic(handler, topic, event);
+                } else {
+                    handler.onEvent(topic, event);
+                }
+            } catch (Exception e) {
+                System.err.println("Error handling topic " + topic + ": " + e.getMessage());
+            }
+        }
+    }
+
+    TopicHandler[] match(String topic) {
+        TopicHandler[] handlers = resolved.get(topic);
+        if (handlers == null) {
+            List<TopicHandler> matches = new ArrayList<>();
+            collect(root, topic.split("\\."), 0, matches);
+            handlers = matches.isEmpty() ? NONE : matches.toArray(NONE);
+            if (resolved.size() >= MAX_CACHED_TOPICS) {
+                resolved.clear();  // unbounded topic vocabularies should not grow the cache forever
+            }
+            resolved.put(topic, handlers);
+        }
+        return handlers;
+    }
+
+    private static void collect(Node node, String[] segments, int depth, List<TopicHandler> matches) {
+        matches.addAll(node.rest);
+        if (depth == segments.length) {
+            matches.addAll(node.exact);
+            return;
+        }
+        Node literal = node.children.get(segments[depth]);
+        if (literal != null) {
+            collect(literal, segments, depth + 1, matches);
+        }
+        if (node.anySegment != null) {
+            collect(node.anySegment, segments, depth + 1, matches);
+        }
+    }
+
+    private static String[] parse(String pattern) {
+        String[] segments = pattern.split("\\.");
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i].isEmpty()) {
+                throw new IllegalArgumentException("Empty segment in topic pattern: " + pattern);
+            }
+            if (segments[i].equals("#") && i != segments.length - 1) {
+                throw new IllegalArgumentException("'#' must be the last segment: " + pattern);
+            }
+        }
+        return segments;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== Topic-Based Subscriptions ===");
+        EventBus eventBus = new EventBus();
+        eventBus.subscribe("COMBAT.*", (topic, event) -> System.out.println("[combat feed] " + topic));
+        eventBus.subscribe("ITEM.FOUND.Legendary", (topic, event) ->
+                System.out.println("[legendary alert] " + event.getEventData().get("playerName")
+                        + " found " + event.getEventData().get("itemName")));
+        eventBus.subscribe("ITEM.#", (topic, event) -> System.out.println("[item audit] " + topic));
+
+        eventBus.publishEvent(new CombatEvent("Conan", "Goblin", 25, false));
+        eventBus.publishEvent(new CombatEvent("Xena", "Dragon", 60, true));
+        eventBus.publishEvent(new ItemEvent("FOUND", "Conan", "Common Potion", "Common"));
+        eventBus.publishEvent(new ItemEvent("FOUND", "Xena", "Legendary Sword", "Legendary"));
+        eventBus.publishEvent(new PlayerActionEvent("KILL_ENEMY", "Xena", "enemyType", "Dragon"));
+
+        // Matching cost with many subscribers on unrelated topics
+        TopicRouter router = new TopicRouter();
+        int[] delivered = new int[1];
+        for (int i = 0; i < 100_000; i++) {
+            router.subscribe("ITEM.FOUND.Player" + i, (topic, event) -> delivered[0]++);
+        }
+        router.subscribe("COMBAT.*", (topic, event) -> delivered[0]++);
+        GameEvent hit = new CombatEvent("Conan", "Orc", 10, false);
+        int publishes = 5_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < publishes; i++) {
+            router.route(hit);
+        }
+        System.out.printf("%.1f ns per routed event with 100001 subscriptions (%d deliveries)%n",
+                (double) (System.nanoTime() - start) / publishes, delivered[0]);
+    }
+}